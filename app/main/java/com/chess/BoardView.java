@@ -0,0 +1,413 @@
+package com.chess;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.RequiresApi;
+
+import com.chess.Engine.Bitboards;
+import com.chess.Engine.Piece;
+import com.chess.Engine.Position;
+
+// the whole board in one view - squares, highlights, selection and pieces are drawn straight from the position
+// squares are engine squares (0 = a1), white at the bottom
+// each square is its own display list where the platform has them, recorded again only when the square is dirty
+public class BoardView extends View {
+    public interface OnSquareClickListener {
+        void onSquareClick(int square);
+    }
+
+    public static final int NO_SQUARE = -1;
+    private static final int SELECTION_STROKE = 4; // px, as the old border drawable
+
+    private final Paint squarePaint = new Paint();
+    private final Paint selectionPaint = new Paint();
+    private final Paint targetPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Choreographer.FrameCallback frameCallback = this::onFrame;
+
+    private Position position;
+    private PieceAtlas pieceAtlas;
+    private OnSquareClickListener listener;
+
+    // by square - 0 draws the plain board color
+    private final int[] squareColors = new int[64];
+    // piece padding by square, px - shared with the game, which outlives the view
+    private int[] pieceInsets = new int[64];
+    // squares whose piece is not shown yet
+    private long hiddenSquares = 0;
+
+    private int selectedSquare = NO_SQUARE;
+    // where the selected piece can go - a dot on empty squares, a ring around pieces it takes
+    private long targetSquares = 0;
+
+    // squares to draw again - changes within a frame are drawn together
+    private long dirtySquares = -1L;
+    private RenderNode[] squareNodes; // api 29+, hardware canvas only
+
+    // pulsing colors - one frame callback drives them all, posted only while something pulses and the window shows
+    private long pulsingSquares = 0;
+    private final long[] pulseStart = new long[64]; // nanos
+    private final int[] pulseFrom = new int[64];
+    private final int[] pulseTo = new int[64];
+    private final int[] pulseMillis = new int[64];
+    private int selectionFrom = GameActivity.WHITE_COLOR;
+    private int selectionTo = GameActivity.WHITE_COLOR;
+    private int selectionMillis = 0; // 0 - steady border
+    private long selectionStart;
+    private boolean windowVisible = false;
+    private boolean frameScheduled = false;
+
+    public BoardView(Context context) {
+        this(context, null);
+    }
+
+    public BoardView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        selectionPaint.setStyle(Paint.Style.STROKE);
+        selectionPaint.setStrokeWidth(SELECTION_STROKE);
+        selectionPaint.setColor(GameActivity.WHITE_COLOR);
+        targetPaint.setColor(GameActivity.LEGAL_TARGET_COLOR);
+    }
+
+    public void setPosition(Position position) {
+        this.position = position;
+        invalidateSquares(-1L);
+    }
+
+    // drawables by piece code
+    public void setPieceDrawables(Drawable[] pieceDrawables) {
+        this.pieceAtlas = new PieceAtlas(pieceDrawables);
+        invalidateSquares(-1L);
+    }
+
+    // the position changed on these squares
+    public void invalidateSquares(long squares) {
+        if (squares != 0) {
+            dirtySquares |= squares;
+            invalidate();
+        }
+    }
+
+    public void setOnSquareClickListener(OnSquareClickListener listener) {
+        this.listener = listener;
+    }
+
+    // fromColor to toColor and back, every millis each way
+    public void pulseSquare(int square, int fromColor, int toColor, int millis) {
+        pulsingSquares |= 1L << square;
+        pulseStart[square] = System.nanoTime();
+        pulseFrom[square] = fromColor;
+        pulseTo[square] = toColor;
+        pulseMillis[square] = millis;
+        squareColors[square] = fromColor;
+        invalidateSquares(1L << square);
+        scheduleFrame();
+    }
+
+    // back to the plain board color
+    public void clearSquareColor(int square) {
+        pulsingSquares &= ~(1L << square);
+        squareColors[square] = 0;
+        invalidateSquares(1L << square);
+    }
+
+    public int getPieceInset(int square) {
+        return pieceInsets[square];
+    }
+
+    public void setPieceInset(int square, int inset) {
+        pieceInsets[square] = inset;
+        invalidateSquares(1L << square);
+    }
+
+    // kept, not copied - setPieceInset writes through to it
+    public void setPieceInsets(int[] insets) {
+        pieceInsets = insets;
+        invalidateSquares(-1L);
+    }
+
+    // every piece now on the board, until shown one by one
+    public void hideAllPieces() {
+        hiddenSquares = 0;
+        for (int square = 0; square < 64; square++) {
+            if (position.pieceAt(square) != Piece.NONE) {
+                hiddenSquares |= 1L << square;
+            }
+        }
+        invalidateSquares(hiddenSquares);
+    }
+
+    public void showPiece(int square) {
+        hiddenSquares &= ~(1L << square);
+        invalidateSquares(1L << square);
+    }
+
+    public void showAllPieces() {
+        invalidateSquares(hiddenSquares);
+        hiddenSquares = 0;
+    }
+
+    // NO_SQUARE clears the selection - a new selection starts its pulse over
+    public void setSelectedSquare(int square) {
+        selectedSquare = square;
+        selectionStart = System.nanoTime();
+        selectionPaint.setColor(selectionFrom);
+        invalidate();
+        scheduleFrame();
+    }
+
+    // only the squares that gain or lose a marker are drawn again
+    public void setTargetSquares(long squares) {
+        invalidateSquares(targetSquares ^ squares);
+        targetSquares = squares;
+    }
+
+    public void setSelectionPulse(int fromColor, int toColor, int millis) {
+        selectionFrom = fromColor;
+        selectionTo = toColor;
+        selectionMillis = millis;
+        selectionPaint.setColor(fromColor);
+    }
+
+    private boolean isPulsing() {
+        return pulsingSquares != 0 || (selectedSquare != NO_SQUARE && selectionMillis > 0);
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled && windowVisible && isPulsing()) {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+            frameScheduled = true;
+        }
+    }
+
+    private void stopFrames() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
+    }
+
+    // frame time shares the System.nanoTime clock
+    private void onFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (!isPulsing()) {
+            return;
+        }
+
+        long squares = pulsingSquares;
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            squareColors[square] = pulseColor(pulseFrom[square], pulseTo[square],
+                    frameTimeNanos - pulseStart[square], pulseMillis[square]);
+        }
+        if (selectedSquare != NO_SQUARE && selectionMillis > 0) {
+            selectionPaint.setColor(pulseColor(selectionFrom, selectionTo,
+                    frameTimeNanos - selectionStart, selectionMillis));
+        }
+
+        invalidateSquares(pulsingSquares);
+        if (selectedSquare != NO_SQUARE) {
+            invalidate(); // the border is drawn over the squares
+        }
+        scheduleFrame();
+    }
+
+    // there and back with the accelerate-decelerate easing ValueAnimator used
+    private static int pulseColor(int fromColor, int toColor, long elapsedNanos, int millis) {
+        long period = millis * 1_000_000L;
+        long phase = Math.max(0, elapsedNanos) % (2 * period);
+        float fraction = (float) (phase < period ? phase : 2 * period - phase) / period;
+        fraction = (float) (Math.cos((fraction + 1) * Math.PI) / 2) + 0.5f;
+        return blend(fromColor, toColor, fraction);
+    }
+
+    private static int blend(int fromColor, int toColor, float fraction) {
+        int color = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int from = (fromColor >>> shift) & 0xFF;
+            int to = (toColor >>> shift) & 0xFF;
+            color |= Math.round(from + (to - from) * fraction) << shift;
+        }
+        return color;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        dirtySquares = -1L;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int boardSize = Math.min(getWidth(), getHeight());
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated()) {
+            drawSquareNodes(canvas, boardSize);
+        } else {
+            for (int square = 0; square < 64; square++) {
+                int row = Bitboards.row(square);
+                int col = Bitboards.col(square);
+                canvas.save();
+                canvas.translate(col * boardSize / 8, row * boardSize / 8);
+                drawSquare(canvas, square, boardSize);
+                canvas.restore();
+            }
+        }
+
+        // selection border, above the piece
+        if (selectedSquare != NO_SQUARE) {
+            int row = Bitboards.row(selectedSquare);
+            int col = Bitboards.col(selectedSquare);
+            float half = SELECTION_STROKE / 2f;
+            canvas.drawRect(col * boardSize / 8 + half, row * boardSize / 8 + half,
+                    (col + 1) * boardSize / 8 - half, (row + 1) * boardSize / 8 - half, selectionPaint);
+        }
+    }
+
+    // only dirty squares are recorded, every square is replayed
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private void drawSquareNodes(Canvas canvas, int boardSize) {
+        if (squareNodes == null) {
+            squareNodes = new RenderNode[64];
+            for (int square = 0; square < 64; square++) {
+                squareNodes[square] = new RenderNode("square");
+            }
+            dirtySquares = -1L;
+        }
+
+        long squares = dirtySquares;
+        dirtySquares = 0;
+        while (squares != 0) {
+            int square = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            int row = Bitboards.row(square);
+            int col = Bitboards.col(square);
+            RenderNode node = squareNodes[square];
+            node.setPosition(col * boardSize / 8, row * boardSize / 8,
+                    (col + 1) * boardSize / 8, (row + 1) * boardSize / 8);
+            RecordingCanvas nodeCanvas = node.beginRecording();
+            drawSquare(nodeCanvas, square, boardSize);
+            node.endRecording();
+        }
+
+        for (RenderNode node : squareNodes) {
+            canvas.drawRenderNode(node);
+        }
+    }
+
+    // one square with its top left corner at the origin
+    private void drawSquare(Canvas canvas, int square, int boardSize) {
+        int row = Bitboards.row(square);
+        int col = Bitboards.col(square);
+        int width = (col + 1) * boardSize / 8 - col * boardSize / 8;
+        int height = (row + 1) * boardSize / 8 - row * boardSize / 8;
+
+        int color = squareColors[square];
+        if (color == 0) {
+            color = (row + col) % 2 == 1 ? GameActivity.DARK_SQUARE_COLOR : GameActivity.LIGHT_SQUARE_COLOR;
+        }
+        squarePaint.setColor(color);
+        canvas.drawRect(0, 0, width, height, squarePaint);
+
+        // one sprite size per padding - squares that are a pixel wider keep the same sprites
+        if (position == null || pieceAtlas == null) {
+            return;
+        }
+        int piece = position.pieceAt(square);
+        if (piece != Piece.NONE && (hiddenSquares & (1L << square)) == 0) {
+            int inset = pieceInsets[square];
+            pieceAtlas.draw(canvas, piece, inset, inset, boardSize / 8 - 2 * inset);
+        }
+
+        // en passant targets are empty squares, so they get the dot
+        if ((targetSquares & (1L << square)) != 0) {
+            float radius = Math.min(width, height) / 2f;
+            if (piece == Piece.NONE) {
+                targetPaint.setStyle(Paint.Style.FILL);
+                canvas.drawCircle(width / 2f, height / 2f, radius / 3, targetPaint);
+            } else {
+                targetPaint.setStyle(Paint.Style.STROKE);
+                targetPaint.setStrokeWidth(radius / 6);
+                canvas.drawCircle(width / 2f, height / 2f, radius - radius / 12, targetPaint);
+            }
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        windowVisible = visibility == VISIBLE;
+        if (windowVisible) {
+            scheduleFrame();
+        } else {
+            stopFrames();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        windowVisible = false;
+        stopFrames();
+    }
+
+    // density or theme may have changed - sprites are rasterized again on the next draw
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (pieceAtlas != null) {
+            pieceAtlas.clear();
+        }
+        invalidateSquares(-1L);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            return true;
+        }
+        if (event.getActionMasked() != MotionEvent.ACTION_UP) {
+            return super.onTouchEvent(event);
+        }
+
+        performClick();
+
+        // a tap cuts the placement short - the board is playable underneath
+        if (hiddenSquares != 0) {
+            showAllPieces();
+        }
+        int square = squareAt(event.getX(), event.getY());
+        if (square != NO_SQUARE && listener != null) {
+            listener.onSquareClick(square);
+        }
+        return true;
+    }
+
+    // taps are handled in onTouchEvent - kept for accessibility
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    private int squareAt(float x, float y) {
+        int boardSize = Math.min(getWidth(), getHeight());
+        if (boardSize == 0 || x < 0 || y < 0 || x >= boardSize || y >= boardSize) {
+            return NO_SQUARE;
+        }
+        int col = (int) (x * 8 / boardSize);
+        int row = (int) (y * 8 / boardSize);
+        return Bitboards.square(row, col);
+    }
+}
@@ -0,0 +1,258 @@
+package com.chess.Engine;
+
+// square 0 = a1, 63 = h8; board row 0 is rank 8 (black back rank)
+public final class Bitboards {
+    public static final long RANK_1 = 0x00000000000000FFL;
+    public static final long RANK_2 = 0x000000000000FF00L;
+    public static final long RANK_3 = 0x0000000000FF0000L;
+    public static final long RANK_6 = 0x0000FF0000000000L;
+    public static final long RANK_7 = 0x00FF000000000000L;
+    public static final long RANK_8 = 0xFF00000000000000L;
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = 0x8080808080808080L;
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // squares strictly between two aligned squares
+    public static final long[][] BETWEEN = new long[64][64];
+
+    // rays to the board edge - north, north-east, east, north-west go up, the rest go down
+    private static final int NORTH = 0, NORTH_EAST = 1, EAST = 2, NORTH_WEST = 3;
+    private static final int SOUTH = 4, SOUTH_WEST = 5, WEST = 6, SOUTH_EAST = 7;
+    private static final int[][] RAY_STEPS = {
+            {0, 1}, {1, 1}, {1, 0}, {-1, 1}, {0, -1}, {-1, -1}, {-1, 0}, {1, -1}
+    };
+    private static final long[][] RAYS = new long[8][64];
+
+    private static final int[][] KNIGHT_STEPS = {
+            {1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}
+    };
+    private static final int[][] KING_STEPS = {
+            {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}
+    };
+
+    // magic bitboards - (occupied & mask) * magic >>> shift indexes the square's slice of one shared table
+    // magics were found offline by random search; the table build rejects any that collide
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+            0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+            0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+            0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+            0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+            0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+            0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+            0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+            0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+            0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+            0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+            0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+            0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+            0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+            0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+            0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+            0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    // startup cost of the static tables, for reporting
+    public static final long INIT_NANOS;
+    public static final long TABLE_BYTES;
+
+    static {
+        long start = System.nanoTime();
+
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7;
+            int rank = sq >>> 3;
+
+            KNIGHT_ATTACKS[sq] = stepAttacks(file, rank, KNIGHT_STEPS);
+            KING_ATTACKS[sq] = stepAttacks(file, rank, KING_STEPS);
+            PAWN_ATTACKS[Piece.WHITE][sq] = stepAttacks(file, rank, new int[][]{{-1, 1}, {1, 1}});
+            PAWN_ATTACKS[Piece.BLACK][sq] = stepAttacks(file, rank, new int[][]{{-1, -1}, {1, -1}});
+
+            // walk every direction and record squares passed on the way
+            for (int[] step : KING_STEPS) {
+                long path = 0L;
+                int f = file + step[0];
+                int r = rank + step[1];
+                while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                    int target = r * 8 + f;
+                    BETWEEN[sq][target] = path;
+                    path |= bit(target);
+                    f += step[0];
+                    r += step[1];
+                }
+            }
+
+            for (int dir = 0; dir < 8; dir++) {
+                long ray = 0L;
+                int f = file + RAY_STEPS[dir][0];
+                int r = rank + RAY_STEPS[dir][1];
+                while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                    ray |= bit(r * 8 + f);
+                    f += RAY_STEPS[dir][0];
+                    r += RAY_STEPS[dir][1];
+                }
+                RAYS[dir][sq] = ray;
+            }
+        }
+
+        // relevant blockers - edge squares never change a slider's attacks
+        int rookSize = 0;
+        int bishopSize = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            ROOK_MASKS[sq] = (RAYS[NORTH][sq] & ~RANK_8) | (RAYS[SOUTH][sq] & ~RANK_1)
+                    | (RAYS[EAST][sq] & ~FILE_H) | (RAYS[WEST][sq] & ~FILE_A);
+            BISHOP_MASKS[sq] = rayBishopAttacks(RAYS, sq, 0L) & ~(RANK_1 | RANK_8 | FILE_A | FILE_H);
+            ROOK_SHIFTS[sq] = 64 - Long.bitCount(ROOK_MASKS[sq]);
+            BISHOP_SHIFTS[sq] = 64 - Long.bitCount(BISHOP_MASKS[sq]);
+            ROOK_OFFSETS[sq] = rookSize;
+            BISHOP_OFFSETS[sq] = bishopSize;
+            rookSize += 1 << Long.bitCount(ROOK_MASKS[sq]);
+            bishopSize += 1 << Long.bitCount(BISHOP_MASKS[sq]);
+        }
+
+        ROOK_TABLE = new long[rookSize];
+        BISHOP_TABLE = new long[bishopSize];
+        fillSliderTable(ROOK_TABLE, RAYS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, true);
+        fillSliderTable(BISHOP_TABLE, RAYS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, false);
+
+        TABLE_BYTES = 8L * (ROOK_TABLE.length + BISHOP_TABLE.length
+                + KNIGHT_ATTACKS.length + KING_ATTACKS.length + 2 * 64 + 64 * 64 + 8 * 64
+                + ROOK_MASKS.length + BISHOP_MASKS.length + ROOK_MAGICS.length + BISHOP_MAGICS.length)
+                + 4L * (ROOK_SHIFTS.length + BISHOP_SHIFTS.length + ROOK_OFFSETS.length + BISHOP_OFFSETS.length);
+        INIT_NANOS = System.nanoTime() - start;
+    }
+
+    private Bitboards() {}
+
+    private static long stepAttacks(int file, int rank, int[][] steps) {
+        long attacks = 0L;
+        for (int[] step : steps) {
+            int f = file + step[0];
+            int r = rank + step[1];
+            if (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                attacks |= bit(r * 8 + f);
+            }
+        }
+        return attacks;
+    }
+
+    private static int magicIndex(long blockers, long magic, int shift) {
+        return (int) ((blockers * magic) >>> shift);
+    }
+
+    // every blocker subset of every square
+    // reads only its arguments - static fields are slow to reach while the class is still initializing
+    private static void fillSliderTable(long[] table, long[][] rays, long[] masks, long[] magics,
+                                        int[] shifts, int[] offsets, boolean isRook) {
+        for (int sq = 0; sq < 64; sq++) {
+            long mask = masks[sq];
+            long blockers = 0L;
+            do {
+                int index = offsets[sq] + magicIndex(blockers, magics[sq], shifts[sq]);
+                long attacks = isRook ? rayRookAttacks(rays, sq, blockers) : rayBishopAttacks(rays, sq, blockers);
+
+                // two blocker sets may share a slot only if they give the same attacks
+                if (table[index] != 0L && table[index] != attacks) {
+                    throw new IllegalStateException("magic collision at square " + sq);
+                }
+                table[index] = attacks;
+                blockers = (blockers - mask) & mask;
+            } while (blockers != 0);
+        }
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] + magicIndex(occupied & ROOK_MASKS[square], ROOK_MAGICS[square], ROOK_SHIFTS[square])];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + magicIndex(occupied & BISHOP_MASKS[square], BISHOP_MAGICS[square], BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    // ray scans - only used to fill the magic tables
+    private static long rayRookAttacks(long[][] rays, int square, long occupied) {
+        return positiveRay(rays[NORTH], square, occupied) | positiveRay(rays[EAST], square, occupied)
+                | negativeRay(rays[SOUTH], square, occupied) | negativeRay(rays[WEST], square, occupied);
+    }
+
+    private static long rayBishopAttacks(long[][] rays, int square, long occupied) {
+        return positiveRay(rays[NORTH_EAST], square, occupied) | positiveRay(rays[NORTH_WEST], square, occupied)
+                | negativeRay(rays[SOUTH_EAST], square, occupied) | negativeRay(rays[SOUTH_WEST], square, occupied);
+    }
+
+    // ray up to and including the first blocker
+    private static long positiveRay(long[] rays, int square, long occupied) {
+        long ray = rays[square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= rays[Long.numberOfTrailingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    private static long negativeRay(long[] rays, int square, long occupied) {
+        long ray = rays[square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= rays[63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    // board coordinates <-> square index
+    public static int square(int row, int col) {
+        return (7 - row) * 8 + col;
+    }
+
+    public static int row(int square) {
+        return 7 - (square >>> 3);
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static int rank(int square) {
+        return square >>> 3;
+    }
+
+    public static int file(int square) {
+        return square & 7;
+    }
+}
@@ -0,0 +1,65 @@
+package com.chess.Engine;
+
+// moves are packed into an int: from (6 bits), to (6 bits), flags (4 bits)
+public final class Move {
+    public static final int NONE = 0;
+
+    // flags
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8; // +0 knight, +1 bishop, +2 rook, +3 queen
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private Move() {}
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return flags(move) == EN_PASSANT;
+    }
+
+    // promotion piece type
+    public static int promotionType(int move) {
+        return Piece.KNIGHT + (flags(move) & 3);
+    }
+
+    // long algebraic notation, e.g. e2e4 or e7e8q
+    public static String toUci(int move) {
+        String uci = Position.squareName(from(move)) + Position.squareName(to(move));
+        if (isPromotion(move)) {
+            uci += "nbrq".charAt(flags(move) & 3);
+        }
+        return uci;
+    }
+}
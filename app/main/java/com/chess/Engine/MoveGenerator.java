@@ -0,0 +1,217 @@
+package com.chess.Engine;
+
+public final class MoveGenerator {
+
+    public enum GameStatus {
+        ONGOING,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    private MoveGenerator() {}
+
+    // pseudo-legal moves, then drop the ones that leave our king attacked
+    public static void generateLegalMoves(Position position, MoveList moves) {
+        generatePseudoLegalMoves(position, moves);
+
+        int us = position.sideToMove();
+        int legalCount = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            position.makeMove(move);
+            if (!position.isInCheck(us)) {
+                moves.set(legalCount++, move);
+            }
+            position.unmakeMove();
+        }
+        moves.truncate(legalCount);
+    }
+
+    // legal captures and promotions only, for quiescence search
+    public static void generateLegalCaptures(Position position, MoveList moves) {
+        generatePseudoLegalMoves(position, moves);
+
+        int us = position.sideToMove();
+        int legalCount = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                continue;
+            }
+            position.makeMove(move);
+            if (!position.isInCheck(us)) {
+                moves.set(legalCount++, move);
+            }
+            position.unmakeMove();
+        }
+        moves.truncate(legalCount);
+    }
+
+    // from -> to for the side to move, promotions taken as queen like createMove
+    public static boolean isLegalMove(Position position, int from, int to, MoveList scratch) {
+        int piece = position.pieceAt(from);
+        if (piece == Piece.NONE || Piece.color(piece) != position.sideToMove()) {
+            return false;
+        }
+
+        // legal moves already cover pins, checks, castling and en passant
+        generateLegalMoves(position, scratch);
+        return scratch.contains(position.createMove(from, to));
+    }
+
+    public static GameStatus gameStatus(Position position, MoveList scratch) {
+        generateLegalMoves(position, scratch);
+        if (!scratch.isEmpty()) {
+            return GameStatus.ONGOING;
+        }
+        return position.isInCheck() ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+    }
+
+    public static void generatePseudoLegalMoves(Position position, MoveList moves) {
+        moves.clear();
+
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        long own = position.colorPieces(us);
+        long enemy = position.colorPieces(them);
+        long occupied = position.occupied();
+        long targets = ~own;
+
+        generatePawnMoves(position, moves, us, enemy, occupied);
+
+        // knights
+        long knights = position.pieces(us, Piece.KNIGHT);
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            addMoves(moves, from, Bitboards.KNIGHT_ATTACKS[from] & targets, enemy);
+        }
+
+        // bishops and queens
+        long diagonal = position.pieces(us, Piece.BISHOP) | position.pieces(us, Piece.QUEEN);
+        while (diagonal != 0) {
+            int from = Long.numberOfTrailingZeros(diagonal);
+            diagonal &= diagonal - 1;
+            addMoves(moves, from, Bitboards.bishopAttacks(from, occupied) & targets, enemy);
+        }
+
+        // rooks and queens
+        long straight = position.pieces(us, Piece.ROOK) | position.pieces(us, Piece.QUEEN);
+        while (straight != 0) {
+            int from = Long.numberOfTrailingZeros(straight);
+            straight &= straight - 1;
+            addMoves(moves, from, Bitboards.rookAttacks(from, occupied) & targets, enemy);
+        }
+
+        // king
+        long king = position.pieces(us, Piece.KING);
+        if (king != 0) {
+            int from = Long.numberOfTrailingZeros(king);
+            addMoves(moves, from, Bitboards.KING_ATTACKS[from] & targets, enemy);
+            generateCastlingMoves(position, moves, us, occupied);
+        }
+    }
+
+    private static void generatePawnMoves(Position position, MoveList moves, int us, long enemy, long occupied) {
+        long pawns = position.pieces(us, Piece.PAWN);
+        long empty = ~occupied;
+        int forward = us == Piece.WHITE ? 8 : -8;
+        long promotionRank = us == Piece.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+
+        // pushes
+        long singlePushes;
+        long doublePushes;
+        if (us == Piece.WHITE) {
+            singlePushes = (pawns << 8) & empty;
+            doublePushes = ((singlePushes & Bitboards.RANK_3) << 8) & empty;
+        } else {
+            singlePushes = (pawns >>> 8) & empty;
+            doublePushes = ((singlePushes & Bitboards.RANK_6) >>> 8) & empty;
+        }
+
+        while (singlePushes != 0) {
+            int to = Long.numberOfTrailingZeros(singlePushes);
+            singlePushes &= singlePushes - 1;
+            if ((Bitboards.bit(to) & promotionRank) != 0) {
+                addPromotions(moves, to - forward, to, Move.PROMOTION);
+            } else {
+                moves.add(Move.encode(to - forward, to, Move.QUIET));
+            }
+        }
+
+        while (doublePushes != 0) {
+            int to = Long.numberOfTrailingZeros(doublePushes);
+            doublePushes &= doublePushes - 1;
+            moves.add(Move.encode(to - 2 * forward, to, Move.DOUBLE_PAWN_PUSH));
+        }
+
+        // captures
+        int enPassantSquare = position.enPassantSquare();
+        long enPassantBit = enPassantSquare >= 0 ? Bitboards.bit(enPassantSquare) : 0L;
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            long attacks = Bitboards.PAWN_ATTACKS[us][from];
+            long captures = attacks & enemy;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if ((Bitboards.bit(to) & promotionRank) != 0) {
+                    addPromotions(moves, from, to, Move.PROMOTION_CAPTURE);
+                } else {
+                    moves.add(Move.encode(from, to, Move.CAPTURE));
+                }
+            }
+
+            if ((attacks & enPassantBit) != 0) {
+                moves.add(Move.encode(from, enPassantSquare, Move.EN_PASSANT));
+            }
+        }
+    }
+
+    private static void generateCastlingMoves(Position position, MoveList moves, int us, long occupied) {
+        int rights = position.castlingRights();
+        int kingSide = us == Piece.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+        int queenSide = us == Piece.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+        if ((rights & (kingSide | queenSide)) == 0) {
+            return;
+        }
+
+        int them = us ^ 1;
+        int kingSquare = us == Piece.WHITE ? 4 : 60;
+
+        // cannot castle out of check
+        if (position.isSquareAttacked(kingSquare, them)) {
+            return;
+        }
+
+        // cannot castle through check - landing square is checked by the legality filter
+        if ((rights & kingSide) != 0
+                && (Bitboards.BETWEEN[kingSquare][kingSquare + 3] & occupied) == 0
+                && !position.isSquareAttacked(kingSquare + 1, them)) {
+            moves.add(Move.encode(kingSquare, kingSquare + 2, Move.KING_CASTLE));
+        }
+
+        if ((rights & queenSide) != 0
+                && (Bitboards.BETWEEN[kingSquare][kingSquare - 4] & occupied) == 0
+                && !position.isSquareAttacked(kingSquare - 1, them)) {
+            moves.add(Move.encode(kingSquare, kingSquare - 2, Move.QUEEN_CASTLE));
+        }
+    }
+
+    private static void addMoves(MoveList moves, int from, long targets, long enemy) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(Move.encode(from, to, (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET));
+        }
+    }
+
+    private static void addPromotions(MoveList moves, int from, int to, int baseFlags) {
+        // queen first
+        for (int piece = 3; piece >= 0; piece--) {
+            moves.add(Move.encode(from, to, baseFlags + piece));
+        }
+    }
+}
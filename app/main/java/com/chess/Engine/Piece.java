@@ -0,0 +1,46 @@
+package com.chess.Engine;
+
+public final class Piece {
+    // colors
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // types
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    // piece codes - color * 6 + type
+    public static final int NONE = -1;
+    public static final int COUNT = 12;
+
+    private Piece() {}
+
+    public static int make(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int color(int piece) {
+        return piece < 6 ? WHITE : BLACK;
+    }
+
+    public static int type(int piece) {
+        return piece < 6 ? piece : piece - 6;
+    }
+
+    public static boolean isWhite(int piece) {
+        return piece >= 0 && piece < 6;
+    }
+
+    // fen letter, '.' for NONE
+    public static char toChar(int piece) {
+        if (piece == NONE) {
+            return '.';
+        }
+        char c = "PNBRQK".charAt(type(piece));
+        return color(piece) == WHITE ? c : Character.toLowerCase(c);
+    }
+}
@@ -0,0 +1,474 @@
+package com.chess.Engine;
+
+import java.util.Arrays;
+
+// headless board state - bitboards per piece and color plus a square -> piece lookup
+public final class Position {
+    // castling rights
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // indexed by piece type
+    private static final String PIECE_CHARS = "pnbrqk";
+
+    private static final int[] START_BACK_RANK = {
+            Piece.ROOK, Piece.KNIGHT, Piece.BISHOP, Piece.QUEEN,
+            Piece.KING, Piece.BISHOP, Piece.KNIGHT, Piece.ROOK
+    };
+
+    // rights that survive a move from or to each square - king and rook home squares clear theirs
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[4] = ALL_CASTLING & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[60] = ALL_CASTLING & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[7] = ALL_CASTLING & ~WHITE_KINGSIDE;
+        CASTLING_MASK[0] = ALL_CASTLING & ~WHITE_QUEENSIDE;
+        CASTLING_MASK[63] = ALL_CASTLING & ~BLACK_KINGSIDE;
+        CASTLING_MASK[56] = ALL_CASTLING & ~BLACK_QUEENSIDE;
+    }
+
+    private final long[] pieceBitboards = new long[Piece.COUNT];
+    private final long[] colorBitboards = new long[2];
+    private long occupied;
+    private final int[] board = new int[64];
+
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+
+    // zobrist key, updated incrementally
+    private long key;
+
+    // undo stack - move played, packed state and key from before it
+    private int[] moveStack = new int[256];
+    private int[] stateStack = new int[256];
+    private long[] keyStack = new long[256];
+    private int ply;
+
+    public Position() {
+        clear();
+    }
+
+    // copy of the current state, without the undo history
+    public Position(Position other) {
+        this(other, false);
+    }
+
+    // withHistory also copies the undo stack - repetition checks then see the moves played before the copy
+    public Position(Position other, boolean withHistory) {
+        System.arraycopy(other.pieceBitboards, 0, pieceBitboards, 0, Piece.COUNT);
+        System.arraycopy(other.colorBitboards, 0, colorBitboards, 0, 2);
+        System.arraycopy(other.board, 0, board, 0, 64);
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        key = other.key;
+
+        if (withHistory) {
+            int capacity = Math.max(moveStack.length, other.ply);
+            moveStack = Arrays.copyOf(other.moveStack, capacity);
+            stateStack = Arrays.copyOf(other.stateStack, capacity);
+            keyStack = Arrays.copyOf(other.keyStack, capacity);
+            ply = other.ply;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorBitboards, 0L);
+        Arrays.fill(board, Piece.NONE);
+        occupied = 0L;
+        sideToMove = Piece.WHITE;
+        castlingRights = 0;
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        key = 0L;
+        ply = 0;
+    }
+
+    public void setStartPosition() {
+        clear();
+        for (int file = 0; file < 8; file++) {
+            addPiece(file, Piece.make(Piece.WHITE, START_BACK_RANK[file]));
+            addPiece(8 + file, Piece.make(Piece.WHITE, Piece.PAWN));
+            addPiece(48 + file, Piece.make(Piece.BLACK, Piece.PAWN));
+            addPiece(56 + file, Piece.make(Piece.BLACK, START_BACK_RANK[file]));
+        }
+        castlingRights = ALL_CASTLING;
+        key = Zobrist.computeKey(this);
+    }
+
+    public void setFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        clear();
+
+        // pieces - rank 8 first
+        int rank = 7;
+        int file = 0;
+        for (int i = 0; i < fields[0].length(); i++) {
+            char c = fields[0].charAt(i);
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int type = PIECE_CHARS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                int color = Character.isUpperCase(c) ? Piece.WHITE : Piece.BLACK;
+                addPiece(rank * 8 + file, Piece.make(color, type));
+                file++;
+            }
+        }
+
+        sideToMove = fields[1].equals("b") ? Piece.BLACK : Piece.WHITE;
+
+        for (int i = 0; i < fields[2].length(); i++) {
+            switch (fields[2].charAt(i)) {
+                case 'K': castlingRights |= WHITE_KINGSIDE; break;
+                case 'Q': castlingRights |= WHITE_QUEENSIDE; break;
+                case 'k': castlingRights |= BLACK_KINGSIDE; break;
+                case 'q': castlingRights |= BLACK_QUEENSIDE; break;
+                default: break;
+            }
+        }
+
+        enPassantSquare = fields[3].equals("-") ? -1 : parseSquare(fields[3]);
+        halfmoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+        fullmoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        key = Zobrist.computeKey(this);
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = board[rank * 8 + file];
+                if (piece == Piece.NONE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char c = PIECE_CHARS.charAt(Piece.type(piece));
+                fen.append(Piece.isWhite(piece) ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(sideToMove == Piece.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) fen.append('K');
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) fen.append('Q');
+            if ((castlingRights & BLACK_KINGSIDE) != 0) fen.append('k');
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) fen.append('q');
+        }
+        fen.append(' ').append(enPassantSquare < 0 ? "-" : squareName(enPassantSquare));
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.file(square)) + (char) ('1' + Bitboards.rank(square));
+    }
+
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return rank * 8 + file;
+    }
+
+    // build the move for a from -> to pair, filling in special move flags
+    public int createMove(int from, int to) {
+        int piece = board[from];
+        int type = Piece.type(piece);
+        boolean isCapture = board[to] != Piece.NONE;
+
+        if (type == Piece.PAWN) {
+            int toRank = Bitboards.rank(to);
+            if (toRank == 0 || toRank == 7) {
+                // always promote to queen
+                return Move.encode(from, to, (isCapture ? Move.PROMOTION_CAPTURE : Move.PROMOTION) + 3);
+            }
+            if (Math.abs(to - from) == 16) {
+                return Move.encode(from, to, Move.DOUBLE_PAWN_PUSH);
+            }
+            if (to == enPassantSquare && Bitboards.file(from) != Bitboards.file(to)) {
+                return Move.encode(from, to, Move.EN_PASSANT);
+            }
+        } else if (type == Piece.KING && Math.abs(to - from) == 2) {
+            return Move.encode(from, to, to > from ? Move.KING_CASTLE : Move.QUEEN_CASTLE);
+        }
+
+        return Move.encode(from, to, isCapture ? Move.CAPTURE : Move.QUIET);
+    }
+
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int piece = board[from];
+        int us = sideToMove;
+
+        if (ply == moveStack.length) {
+            moveStack = Arrays.copyOf(moveStack, ply * 2);
+            stateStack = Arrays.copyOf(stateStack, ply * 2);
+            keyStack = Arrays.copyOf(keyStack, ply * 2);
+        }
+
+        // key before any piece moves
+        long previousKey = key;
+
+        // capture
+        int captured = Piece.NONE;
+        if (flags == Move.EN_PASSANT) {
+            int capturedSquare = us == Piece.WHITE ? to - 8 : to + 8;
+            captured = board[capturedSquare];
+            removePiece(capturedSquare);
+        } else if (board[to] != Piece.NONE) {
+            captured = board[to];
+            removePiece(to);
+        }
+
+        moveStack[ply] = move;
+        stateStack[ply] = packState(captured);
+        keyStack[ply] = previousKey;
+        ply++;
+
+        removePiece(from);
+        if (Move.isPromotion(move)) {
+            addPiece(to, Piece.make(us, Move.promotionType(move)));
+        } else {
+            addPiece(to, piece);
+        }
+
+        // castle - move rook as well
+        if (flags == Move.KING_CASTLE) {
+            movePiece(to + 1, to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(to - 2, to + 1);
+        }
+
+        // castling rights and en passant file - xor out the old, xor in the new
+        key ^= Zobrist.CASTLING[castlingRights];
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        key ^= Zobrist.CASTLING[castlingRights];
+
+        if (enPassantSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[Bitboards.file(enPassantSquare)];
+        }
+        enPassantSquare = flags == Move.DOUBLE_PAWN_PUSH ? (from + to) / 2 : -1;
+        if (enPassantSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[Bitboards.file(enPassantSquare)];
+        }
+
+        halfmoveClock = (Piece.type(piece) == Piece.PAWN || captured != Piece.NONE) ? 0 : halfmoveClock + 1;
+        if (us == Piece.BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = us ^ 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    public void unmakeMove() {
+        if (ply == 0) {
+            return;
+        }
+
+        ply--;
+        int move = moveStack[ply];
+        int state = stateStack[ply];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+
+        sideToMove ^= 1;
+        int us = sideToMove;
+        if (us == Piece.BLACK) {
+            fullmoveNumber--;
+        }
+
+        // undo rook move
+        if (flags == Move.KING_CASTLE) {
+            movePiece(to - 1, to + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(to + 1, to - 2);
+        }
+
+        int piece = Move.isPromotion(move) ? Piece.make(us, Piece.PAWN) : board[to];
+        removePiece(to);
+        addPiece(from, piece);
+
+        // restore captured piece
+        int captured = (state & 0xF) - 1;
+        if (captured != Piece.NONE) {
+            int capturedSquare = to;
+            if (flags == Move.EN_PASSANT) {
+                capturedSquare = us == Piece.WHITE ? to - 8 : to + 8;
+            }
+            addPiece(capturedSquare, captured);
+        }
+
+        castlingRights = (state >>> 4) & 0xF;
+        enPassantSquare = ((state >>> 8) & 0x7F) - 1;
+        halfmoveClock = state >>> 15;
+        key = keyStack[ply];
+    }
+
+    private int packState(int captured) {
+        return (captured + 1) | (castlingRights << 4) | ((enPassantSquare + 1) << 8) | (halfmoveClock << 15);
+    }
+
+    private void addPiece(int square, int piece) {
+        long bit = Bitboards.bit(square);
+        pieceBitboards[piece] |= bit;
+        colorBitboards[Piece.color(piece)] |= bit;
+        occupied |= bit;
+        board[square] = piece;
+        key ^= Zobrist.PIECE_SQUARE[piece][square];
+    }
+
+    private void removePiece(int square) {
+        int piece = board[square];
+        if (piece == Piece.NONE) {
+            return;
+        }
+
+        long bit = Bitboards.bit(square);
+        pieceBitboards[piece] &= ~bit;
+        colorBitboards[Piece.color(piece)] &= ~bit;
+        occupied &= ~bit;
+        board[square] = Piece.NONE;
+        key ^= Zobrist.PIECE_SQUARE[piece][square];
+    }
+
+    private void movePiece(int from, int to) {
+        int piece = board[from];
+        removePiece(from);
+        addPiece(to, piece);
+    }
+
+    public boolean isSquareAttacked(int square, int byColor) {
+        if ((Bitboards.PAWN_ATTACKS[byColor ^ 1][square] & pieces(byColor, Piece.PAWN)) != 0) return true;
+        if ((Bitboards.KNIGHT_ATTACKS[square] & pieces(byColor, Piece.KNIGHT)) != 0) return true;
+        if ((Bitboards.KING_ATTACKS[square] & pieces(byColor, Piece.KING)) != 0) return true;
+
+        long queens = pieces(byColor, Piece.QUEEN);
+        if ((Bitboards.bishopAttacks(square, occupied) & (pieces(byColor, Piece.BISHOP) | queens)) != 0) return true;
+        return (Bitboards.rookAttacks(square, occupied) & (pieces(byColor, Piece.ROOK) | queens)) != 0;
+    }
+
+    public boolean isInCheck() {
+        return isInCheck(sideToMove);
+    }
+
+    public boolean isInCheck(int color) {
+        long king = pieces(color, Piece.KING);
+        return king != 0 && isSquareAttacked(Long.numberOfTrailingZeros(king), color ^ 1);
+    }
+
+    // same position earlier with the same side to move, since the last capture or pawn move
+    public boolean isRepetition() {
+        int earliest = Math.max(0, ply - halfmoveClock);
+        for (int i = ply - 2; i >= earliest; i -= 2) {
+            if (keyStack[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // getters
+
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public long pieces(int piece) {
+        return pieceBitboards[piece];
+    }
+
+    public long pieces(int color, int type) {
+        return pieceBitboards[Piece.make(color, type)];
+    }
+
+    public long colorPieces(int color) {
+        return colorBitboards[color];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int fullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    public int ply() {
+        return ply;
+    }
+
+    public int lastMove() {
+        return ply > 0 ? moveStack[ply - 1] : Move.NONE;
+    }
+
+    // move played at index of the undo history, oldest first
+    public int moveAt(int index) {
+        return moveStack[index];
+    }
+}
@@ -0,0 +1,421 @@
+package com.chess.Engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// iterative deepening principal variation search with a transposition table and quiescence search
+// lazy smp - helper threads search the same root at staggered depths and only share the table
+public final class Search {
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+    public static final int MAX_PLY = 64;
+
+    // limits - zero or less means unlimited
+    public static final class Limits {
+        public final int maxDepth;
+        public final long timeMillis;
+        public final long maxNodes;
+
+        public Limits(int maxDepth, long timeMillis, long maxNodes) {
+            this.maxDepth = maxDepth;
+            this.timeMillis = timeMillis;
+            this.maxNodes = maxNodes;
+        }
+    }
+
+    public static final class Result {
+        public final int bestMove;
+        public final int score;
+        public final int depth;
+        public final long nodes;
+        public final long nanos;
+
+        Result(int bestMove, int score, int depth, long nodes, long nanos) {
+            this.bestMove = bestMove;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.nanos = nanos;
+        }
+
+        public long nodesPerSecond() {
+            return nanos > 0 ? nodes * 1_000_000_000L / nanos : 0;
+        }
+    }
+
+    // move ordering
+    private static final int TT_MOVE_SCORE = 1_000_000;
+    private static final int CAPTURE_SCORE = 100_000;
+    private static final int KILLER_SCORE = 90_000;
+
+    // how often the clock is read
+    private static final int CHECK_INTERVAL = 2047;
+
+    private final TranspositionTable table;
+    private final Worker[] workers;
+    private final ExecutorService helperPool; // null with a single thread
+
+    private long maxNodes;
+    private long deadline;
+    private volatile boolean stopped;
+    // bumped by every stop - a search started for an older value stops at once
+    private final AtomicInteger stopCount = new AtomicInteger();
+
+    public Search(int tableSizeMb) {
+        this(tableSizeMb, 1);
+    }
+
+    public Search(int tableSizeMb, int threads) {
+        this.table = new TranspositionTable(tableSizeMb);
+        this.workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+        }
+        this.helperPool = workers.length > 1 ? Executors.newFixedThreadPool(workers.length - 1, runnable -> {
+            Thread thread = new Thread(runnable, "SearchHelper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    // may be called from another thread - also stops a search that has not started yet, see stopToken
+    public void stop() {
+        stopCount.incrementAndGet();
+        stopped = true;
+    }
+
+    // taken when a search is requested - any stop after it ends that search, however late it starts
+    public int stopToken() {
+        return stopCount.get();
+    }
+
+    public void clearTable() {
+        table.clear();
+    }
+
+    public void shutdown() {
+        stop();
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+
+    public Result search(Position root, Limits limits) {
+        return search(root, limits, stopToken());
+    }
+
+    public Result search(Position root, Limits limits, int stopToken) {
+        long start = System.nanoTime();
+        maxNodes = limits.maxNodes > 0 ? limits.maxNodes : Long.MAX_VALUE;
+        deadline = limits.timeMillis > 0 ? start + limits.timeMillis * 1_000_000L : Long.MAX_VALUE;
+
+        // a stop since the token was taken is kept - stop bumps the count before it sets the flag
+        stopped = false;
+        if (stopCount.get() != stopToken) {
+            stopped = true;
+        }
+
+        int maxDepth = limits.maxDepth > 0 ? Math.min(limits.maxDepth, MAX_PLY - 1) : MAX_PLY - 1;
+
+        // helpers work on their own copies of the root
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            Worker helper = workers[i];
+            Position copy = new Position(root, true);
+            helpers.add(helperPool.submit(() -> helper.iterate(copy, maxDepth)));
+        }
+
+        // the main worker owns the limits and the result
+        Worker main = workers[0];
+        main.iterate(root, maxDepth);
+
+        stopped = true;
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("search helper failed", e.getCause());
+            }
+        }
+
+        long nodes = 0;
+        for (Worker worker : workers) {
+            nodes += worker.nodes;
+        }
+
+        // stopped before the first iteration finished - any legal move
+        int bestMove = main.bestMove;
+        if (bestMove == Move.NONE) {
+            MoveList moves = main.moveLists[0];
+            MoveGenerator.generateLegalMoves(root, moves);
+            if (!moves.isEmpty()) {
+                bestMove = moves.get(0);
+            }
+        }
+
+        return new Result(bestMove, main.bestScore, main.completedDepth, nodes, System.nanoTime() - start);
+    }
+
+    // per-thread search state
+    private final class Worker {
+        private final int id;
+        private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+        private final int[][] moveScores = new int[MAX_PLY + 1][MoveList.MAX_MOVES];
+        private final int[][] killers = new int[MAX_PLY + 1][2];
+
+        private Position position;
+        private long nodes;
+        private int rootBestMove;
+        private int bestMove;
+        private int bestScore;
+        private int completedDepth;
+
+        Worker(int id) {
+            this.id = id;
+            for (int i = 0; i <= MAX_PLY; i++) {
+                moveLists[i] = new MoveList();
+            }
+        }
+
+        void iterate(Position root, int maxDepth) {
+            position = root;
+            nodes = 0;
+            bestMove = Move.NONE;
+            bestScore = 0;
+            completedDepth = 0;
+            for (int[] killer : killers) {
+                killer[0] = Move.NONE;
+                killer[1] = Move.NONE;
+            }
+
+            // odd helpers start one ply deeper so the threads do not all walk the same tree
+            for (int depth = 1 + (id & 1); depth <= maxDepth; depth++) {
+                rootBestMove = Move.NONE;
+                int score = pvs(depth, -INFINITY, INFINITY, 0);
+
+                // unfinished iteration - keep the best move of the last complete one
+                if (stopped && bestMove != Move.NONE) {
+                    break;
+                }
+
+                if (rootBestMove != Move.NONE) {
+                    bestMove = rootBestMove;
+                    bestScore = score;
+                    completedDepth = depth;
+                }
+
+                // forced mate found or out of time
+                if (stopped || Math.abs(score) >= MATE - MAX_PLY) {
+                    break;
+                }
+            }
+        }
+
+        private int pvs(int depth, int alpha, int beta, int ply) {
+            if (ply > 0 && (position.isRepetition() || position.halfmoveClock() >= 100)) {
+                return 0;
+            }
+
+            if (depth <= 0) {
+                return quiesce(alpha, beta, ply);
+            }
+
+            if (ply >= MAX_PLY - 1) {
+                return Evaluation.evaluate(position);
+            }
+
+            nodes++;
+            if ((nodes & CHECK_INTERVAL) == 0) {
+                checkLimits();
+            }
+
+            boolean isPvNode = beta - alpha > 1;
+            int originalAlpha = alpha;
+
+            // transposition table
+            int tableMove = Move.NONE;
+            long entry = table.probe(position.key());
+            if (entry != TranspositionTable.NO_ENTRY) {
+                tableMove = TranspositionTable.move(entry);
+                if (!isPvNode && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+
+            // check extension
+            boolean inCheck = position.isInCheck();
+            if (inCheck) {
+                depth++;
+            }
+
+            MoveList moves = moveLists[ply];
+            MoveGenerator.generateLegalMoves(position, moves);
+            if (moves.isEmpty()) {
+                return inCheck ? -MATE + ply : 0;
+            }
+            scoreMoves(moves, moveScores[ply], tableMove, ply);
+
+            int bestScore = -INFINITY;
+            int bestMove = Move.NONE;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = pickMove(moves, moveScores[ply], i);
+
+                position.makeMove(move);
+                int score;
+                if (i == 0) {
+                    score = -pvs(depth - 1, -beta, -alpha, ply + 1);
+                } else {
+                    // null window first, re-search if it might improve alpha
+                    score = -pvs(depth - 1, -alpha - 1, -alpha, ply + 1);
+                    if (score > alpha && score < beta) {
+                        score = -pvs(depth - 1, -beta, -alpha, ply + 1);
+                    }
+                }
+                position.unmakeMove();
+
+                if (stopped) {
+                    return 0;
+                }
+
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                    if (ply == 0) {
+                        rootBestMove = move;
+                    }
+
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            if (!Move.isCapture(move) && move != killers[ply][0]) {
+                                killers[ply][1] = killers[ply][0];
+                                killers[ply][0] = move;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+
+            int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                    : bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                    : TranspositionTable.EXACT;
+            table.store(position.key(), bestMove, scoreToTable(bestScore, ply), depth, bound);
+            return bestScore;
+        }
+
+        // captures only, until the position is quiet
+        private int quiesce(int alpha, int beta, int ply) {
+            nodes++;
+            if ((nodes & CHECK_INTERVAL) == 0) {
+                checkLimits();
+            }
+
+            int standPat = Evaluation.evaluate(position);
+            if (ply >= MAX_PLY - 1 || standPat >= beta) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+
+            MoveList moves = moveLists[ply];
+            MoveGenerator.generateLegalCaptures(position, moves);
+            scoreMoves(moves, moveScores[ply], Move.NONE, ply);
+
+            for (int i = 0; i < moves.size(); i++) {
+                int move = pickMove(moves, moveScores[ply], i);
+
+                position.makeMove(move);
+                int score = -quiesce(-beta, -alpha, ply + 1);
+                position.unmakeMove();
+
+                if (stopped) {
+                    return 0;
+                }
+
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+            return alpha;
+        }
+
+        // only the main worker enforces limits - helpers run until it stops
+        private void checkLimits() {
+            if (id == 0 && (nodes >= maxNodes || System.nanoTime() >= deadline)) {
+                stopped = true;
+            }
+        }
+
+        // table move, then captures by most valuable victim / least valuable attacker, then killers
+        private void scoreMoves(MoveList moves, int[] scores, int tableMove, int ply) {
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (move == tableMove) {
+                    scores[i] = TT_MOVE_SCORE;
+                } else if (Move.isCapture(move)) {
+                    int victim = Move.isEnPassant(move) ? Piece.PAWN : Piece.type(position.pieceAt(Move.to(move)));
+                    int attacker = Piece.type(position.pieceAt(Move.from(move)));
+                    scores[i] = CAPTURE_SCORE + Evaluation.PIECE_VALUES[victim] * 10 - attacker;
+                } else if (move == killers[ply][0] || move == killers[ply][1]) {
+                    scores[i] = KILLER_SCORE;
+                } else {
+                    scores[i] = Move.isPromotion(move) ? KILLER_SCORE + Move.promotionType(move) : 0;
+                }
+            }
+        }
+    }
+
+    // selection sort step - moves the best remaining move to index
+    private static int pickMove(MoveList moves, int[] scores, int index) {
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves.get(best);
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return moves.get(index);
+    }
+
+    // mate scores are stored relative to the node, not the root
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+}
@@ -0,0 +1,64 @@
+package com.chess.Engine;
+
+import java.util.Arrays;
+
+// search results by zobrist key - move, score, depth and bound packed into one long
+// shared by all search threads without locks - entries store key ^ data next to data, like the perft cache
+public final class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    public static final long NO_ENTRY = 0L;
+    private static final long VALID = 1L << 42;
+
+    private final long[] checks;
+    private final long[] data;
+    private final int mask;
+
+    public TranspositionTable(int sizeMb) {
+        // two longs per entry, rounded down to a power of two
+        int entries = Integer.highestOneBit(Math.max(1, sizeMb) * (1024 * 1024 / 16));
+        this.checks = new long[entries];
+        this.data = new long[entries];
+        this.mask = entries - 1;
+    }
+
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        return (checks[index] ^ entry) == key ? entry : NO_ENTRY;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long entry = (move & 0xFFFFL)
+                | ((long) (score + 32768) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | VALID;
+        data[index] = entry;
+        checks[index] = key ^ entry;
+    }
+
+    public void clear() {
+        Arrays.fill(checks, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int score(long entry) {
+        return (int) ((entry >>> 16) & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 32) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 40) & 0x3);
+    }
+}
@@ -0,0 +1,61 @@
+package com.chess.Engine;
+
+// random keys for position hashing - fixed seed so keys are stable between runs
+public final class Zobrist {
+    public static final long[][] PIECE_SQUARE = new long[Piece.COUNT][64];
+    public static final long[] CASTLING = new long[16];
+    public static final long[] EN_PASSANT_FILE = new long[8];
+    public static final long SIDE;
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int piece = 0; piece < Piece.COUNT; piece++) {
+            for (int square = 0; square < 64; square++) {
+                seed = next(seed);
+                PIECE_SQUARE[piece][square] = scramble(seed);
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            seed = next(seed);
+            CASTLING[rights] = scramble(seed);
+        }
+        for (int file = 0; file < 8; file++) {
+            seed = next(seed);
+            EN_PASSANT_FILE[file] = scramble(seed);
+        }
+        seed = next(seed);
+        SIDE = scramble(seed);
+    }
+
+    private Zobrist() {}
+
+    // xorshift64*
+    private static long next(long state) {
+        state ^= state >>> 12;
+        state ^= state << 25;
+        state ^= state >>> 27;
+        return state;
+    }
+
+    private static long scramble(long state) {
+        return state * 0x2545F4914F6CDD1DL;
+    }
+
+    public static long computeKey(Position position) {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece != Piece.NONE) {
+                key ^= PIECE_SQUARE[piece][square];
+            }
+        }
+        key ^= CASTLING[position.castlingRights()];
+        if (position.enPassantSquare() >= 0) {
+            key ^= EN_PASSANT_FILE[Bitboards.file(position.enPassantSquare())];
+        }
+        if (position.sideToMove() == Piece.BLACK) {
+            key ^= SIDE;
+        }
+        return key;
+    }
+}
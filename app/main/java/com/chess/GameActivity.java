@@ -1,16 +1,13 @@
 package com.chess;
 
-import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
-import android.view.View;
+import android.os.SystemClock;
+import android.util.Log;
 import android.widget.Button;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
-import android.widget.TableLayout;
 import android.widget.TextView;
 
 import androidx.activity.EdgeToEdge;
@@ -18,51 +15,43 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.ViewModelProvider;
 
+import com.chess.Engine.Position;
 import com.chess.GameActivityManagers.AnimationManager;
 import com.chess.GameActivityManagers.BoardManager;
 import com.chess.GameActivityManagers.ChessPieceManager;
+import com.chess.GameActivityManagers.ComputerPlayerManager;
+import com.chess.GameActivityManagers.GameEvents;
 import com.chess.GameActivityManagers.GameStateManager;
 import com.chess.GameActivityManagers.MoveInfo;
 import com.chess.GameActivityManagers.MoveManager;
 import com.chess.GameActivityManagers.MoveValidator;
+import com.chess.GameActivityManagers.SaveManager;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Stack;
-import java.util.ArrayList;
 
 public class GameActivity extends AppCompatActivity {
-
-    @SuppressLint("StaticFieldLeak")
-    private static GameActivity instance;
+    private static final String TAG = "GameActivity";
 
     private boolean shouldResumeGame = false;
-    private static final long REPLAY_MOVE_DELAY = 50; // 0.05s
-    private static final long INITIAL_REPLAY_DELAY = 100; // 0.1s
-
-    private boolean isWhiteTurn = true;
-    private TableLayout chessboard;
-    private FrameLayout selectedSquare = null;
-    private ImageView selectedPiece = null;
-    private View selectionBorder;
-    private ValueAnimator borderAnimator;
 
-    private final Handler handler = new Handler(Looper.getMainLooper());
-    private final Stack<MoveInfo> moveHistory = new Stack<>();
+    // cold start timing - from onCreate to the board drawn and to the first move made
+    private long createdAtMillis;
+    private boolean firstMoveLogged = false;
 
-    // square animations
-    private final Map<FrameLayout, ValueAnimator> squareAnimators = new HashMap<>();
+    // the game itself - survives this activity being recreated
+    private GameViewModel game;
+    private BoardView chessboard;
+    private int selectedSquare = BoardView.NO_SQUARE;
 
-    // chessboard id map
-    private final Map<Integer, Integer> resourceIdMap = new HashMap<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final GameEvents gameEvents = new GameEvents();
 
     // last move info
-    private FrameLayout lastMoveFromSquare = null;
-    private FrameLayout lastMoveToSquare = null;
+    private int lastMoveFromSquare = BoardView.NO_SQUARE;
+    private int lastMoveToSquare = BoardView.NO_SQUARE;
     private TextView gameInfoTextView;
-    private boolean gameOver = false;
-    private String gameWinner = null;
 
     // managers
     private BoardManager boardManager;
@@ -70,6 +59,9 @@ public class GameActivity extends AppCompatActivity {
     private AnimationManager animationManager;
     private ChessPieceManager chessPieceManager;
     private MoveValidator moveValidator;
+    // the game's - these outlive the activity
+    private ComputerPlayerManager computerPlayerManager;
+    private SaveManager saveManager;
 
     // colors for the squares
     public static final int WHITE_COLOR = 0xFFFFFFFF;
@@ -79,11 +71,13 @@ public class GameActivity extends AppCompatActivity {
     public static final int DARK_SQUARE_COLOR = 0xFFD18B47;
     public static final int FROM_SQUARE_HIGHLIGHT = 0xFFE8F5E9; // Light green tint
     public static final int TO_SQUARE_HIGHLIGHT = 0xFFE1F5FE;   // Light blue tint
+    public static final int LEGAL_TARGET_COLOR = 0x50000000;    // translucent black
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        instance = this;
+        createdAtMillis = SystemClock.uptimeMillis();
+        game = new ViewModelProvider(this).get(GameViewModel.class);
 
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_game);
@@ -98,19 +92,29 @@ public class GameActivity extends AppCompatActivity {
             shouldResumeGame = true;
         }
 
-        initializeResourceIdMap();
         chessboard = findViewById(R.id.chessboard);
 
-        // selection border
-        selectionBorder = new View(this);
-        selectionBorder.setBackgroundResource(R.drawable.selection_border);
-
         // managers
         initializeManagers();
+        chessPieceManager.loadPieceDrawables();
+        gameEvents.subscribe((type, squares) -> {
+            if (type == GameEvents.GAME_ENDED) {
+                updateGameInfoText();
+            } else if (type == GameEvents.MOVE_MADE && !firstMoveLogged) {
+                firstMoveLogged = true;
+                Log.i(TAG, "First move: " + (SystemClock.uptimeMillis() - createdAtMillis) + " ms after create");
+            }
+        });
+
+        // runs after the first layout and draw pass
+        chessboard.post(() -> {
+            reportFullyDrawn();
+            Log.i(TAG, "Board ready: " + (SystemClock.uptimeMillis() - createdAtMillis) + " ms after create");
+        });
 
         // game info
         gameInfoTextView = findViewById(R.id.gameInfo);
-        setWhiteTurn(isWhiteTurn);
+        updateGameInfoText();
 
         // border animation
         animationManager.setupBorderAnimation();
@@ -128,84 +132,71 @@ public class GameActivity extends AppCompatActivity {
             });
         }
 
-        // chess piece placement related animations
-        chessPieceManager.animatePiecePlacement();
-
-        // click listeners for squares
+        // taps on the board
         boardManager.setupChessboardClickListeners();
 
-        // piece placement from resume
-        long totalPlacementTime = 32 * PLACEMENT_DELAY;
-        handler.postDelayed(this::onPiecePlacementComplete, totalPlacementTime + 100);
+        // recreated - the game is still in memory, drawn as it stands
+        if (game.isStarted()) {
+            chessPieceManager.placePieces(game.getPieceInsets());
+            if (!game.getMoveHistory().isEmpty()) {
+                animationManager.highlightMove(game.getMoveHistory().peek());
+            }
+            saveManager.start();
+            return;
+        }
+        game.setStarted();
+        game.setVsComputer(intent.getBooleanExtra("vsComputer", false));
+        game.getPosition().setStartPosition();
+
+        // a saved game is drawn as it stands, however long it is - onResume starts the computer if it is to move
+        if (shouldResumeGame && resumeSavedGame()) {
+            saveManager.start();
+            saveManager.flush(); // fold the journal into a fresh snapshot
+            return;
+        }
+
+        saveManager.start();
+
+        // the board plays from the first frame - placement only plays over it
+        chessPieceManager.placeStartPieces();
+        chessPieceManager.animatePiecePlacement();
     }
 
     @SuppressLint("SetTextI18n")
     private void updateGameInfoText() {
         if (gameInfoTextView != null) {
-            if (gameOver && gameWinner != null) {
+            if (game.isGameOver() && game.getGameWinner() != null) {
                 // show winner
-                gameInfoTextView.setText(gameWinner + " won!");
+                gameInfoTextView.setText(game.getGameWinner() + " won!");
+            } else if (game.isGameOver()) {
+                // stalemate
+                gameInfoTextView.setText("Stalemate - draw!");
             } else {
                 // show turn
-                String currentPlayer = isWhiteTurn ? "White" : "Black";
+                String currentPlayer = game.isWhiteTurn() ? "White" : "Black";
                 gameInfoTextView.setText(currentPlayer + " to move!");
             }
         }
     }
 
-    private void onPiecePlacementComplete() {
-        if (shouldResumeGame) {
-            handler.postDelayed(this::loadAndReplaySavedGame, INITIAL_REPLAY_DELAY);
-        }
-    }
-
-    private void loadAndReplaySavedGame() {
-        GameStateManager.GameState gameState = GameStateManager.loadGameState(this);
+    // the saved game is played onto the position headlessly, then drawn in one pass
+    private boolean resumeSavedGame() {
+        GameStateManager.GameState gameState = GameStateManager.loadGameState(this, game.getPosition());
         if (gameState == null) {
-            return;
+            return false;
         }
+        game.setVsComputer(gameState.isVsComputer());
+        game.getMoveHistory().addAll(gameState.getMoveHistory());
+        saveManager.setUncheckedPlies(gameState.getUncheckedPlies());
 
-        // get saved moves as ArrayList
-        ArrayList<MoveInfo> moves = new ArrayList<>(gameState.getMoveHistory());
-
-        // replay moves
-        for (int i = 0; i < moves.size(); i++) {
-            final int moveIndex = i;
-            final boolean isLastMove = (moveIndex == moves.size() - 1);
-
-            handler.postDelayed(() -> {
-                replayMove(moves.get(moveIndex), isLastMove);
-
-                if (isLastMove) {
-                    setWhiteTurn(gameState.isWhiteTurn());
-                }
-            }, i * REPLAY_MOVE_DELAY);
+        chessPieceManager.placePieces(gameState.getPiecePaddings());
+        if (!game.getMoveHistory().isEmpty()) {
+            animationManager.highlightMove(game.getMoveHistory().peek());
         }
-    }
-
-    private void replayMove(MoveInfo move, boolean shouldHighlight) {
-        FrameLayout fromSquare = boardManager.getSquareAt(move.fromRow, move.fromCol);
-        FrameLayout toSquare = boardManager.getSquareAt(move.toRow, move.toCol);
-
-        if (fromSquare == null || toSquare == null) return;
-
-        // find piece to move
-        ImageView pieceToMove = chessPieceManager.findPieceInSquare(fromSquare);
-        if (pieceToMove == null) return;
 
-        // clear highlights
-        animationManager.clearLastMoveHighlights();
-
-        // add move to history
-        moveHistory.push(move);
-
-        // execute move
-        moveManager.movePiece(pieceToMove, fromSquare, toSquare);
-
-        // highlight
-        if (shouldHighlight) {
-            animationManager.highlightMove(move);
-        }
+        updateGameInfoText();
+        moveManager.checkGameEnd();
+        return true;
     }
 
     private void initializeManagers() {
@@ -213,20 +204,10 @@ public class GameActivity extends AppCompatActivity {
         moveManager = new MoveManager(this);
         animationManager = new AnimationManager(this);
         chessPieceManager = new ChessPieceManager(this);
-        moveValidator = new MoveValidator(this);
-    }
-
-    private void initializeResourceIdMap() {
-        int[] resourceIds = {
-                R.drawable.w_pawn, R.drawable.w_rook, R.drawable.w_knight,
-                R.drawable.w_bishop, R.drawable.w_queen, R.drawable.w_king,
-                R.drawable.b_pawn, R.drawable.b_rook, R.drawable.b_knight,
-                R.drawable.b_bishop, R.drawable.b_queen, R.drawable.b_king
-        };
-
-        for (int id : resourceIds) {
-            resourceIdMap.put(id, id);
-        }
+        moveValidator = new MoveValidator(game.getPosition());
+        computerPlayerManager = game.getComputerPlayerManager();
+        saveManager = game.getSaveManager();
+        saveManager.listenTo(gameEvents);
     }
 
     private void setupUndoButton() {
@@ -237,140 +218,135 @@ public class GameActivity extends AppCompatActivity {
                 if (isGameOver()) {
                     return;
                 }
+                computerPlayerManager.cancel();
                 moveManager.undoLastMove();
+
+                // take back the computer's reply as well
+                if (isComputerTurn()) {
+                    moveManager.undoLastMove();
+                }
             });
         }
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // takes a move found while no activity showed the game, then restarts a search dropped by onPause
+        if (computerPlayerManager != null) {
+            computerPlayerManager.setListener(moveManager::makeComputerMove);
+            computerPlayerManager.onTurnChanged();
+        }
+    }
+
     @Override
     protected void onPause() {
         super.onPause();
-        // cancel all animations
-        if (borderAnimator != null && borderAnimator.isRunning()) {
-            borderAnimator.cancel();
+        // a rotation keeps the search - the next activity takes its move
+        computerPlayerManager.setListener(null);
+        if (!isChangingConfigurations()) {
+            computerPlayerManager.cancel();
         }
 
-        // cancel square animations
-        for (ValueAnimator animator : squareAnimators.values()) {
-            if (animator.isRunning()) {
-                animator.cancel();
-            }
-        }
-        squareAnimators.clear();
+        // written in the background - leaving the game never waits on it
+        saveManager.flush();
 
+        // placement is cut short - show what it had left
         handler.removeCallbacksAndMessages(null);
+        chessboard.showAllPieces();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
 
-        if (instance == this) {
-            instance = null;
-        }
-
-        // remove animations
-        if (borderAnimator != null && borderAnimator.isRunning()) {
-            borderAnimator.cancel();
-        }
-
-        for (ValueAnimator animator : squareAnimators.values()) {
-            if (animator.isRunning()) {
-                animator.cancel();
-            }
-        }
-        squareAnimators.clear();
-
+        // the search and the save thread stop with the view model, in onCleared
         handler.removeCallbacksAndMessages(null);
     }
 
     public void saveCurrentGame() {
-        if (moveHistory.isEmpty()) {
+        if (game.getMoveHistory().isEmpty()) {
             // nothing to save
             return;
         }
 
         // save current game state
-        GameStateManager.saveGameState(this, moveHistory, isWhiteTurn);
+        saveManager.flush();
     }
 
+    // the info text follows with the GAME_ENDED event
     public void setGameWinner(String winner) {
-        this.gameWinner = winner;
-        this.gameOver = true;
-        updateGameInfoText();
+        game.setGameOver(winner);
     }
 
-    // getters and setters
-
-    public boolean isGameOver() {
-        return gameOver;
+    public void setGameDrawn() {
+        game.setGameOver(null);
     }
 
-    public TableLayout getChessboard() {
-        return chessboard;
-    }
+    // getters and setters
 
-    public MoveValidator getMoveValidator() {
-        return moveValidator;
+    public boolean isGameOver() {
+        return game.isGameOver();
     }
 
-    public Handler getHandler() {
-        return handler;
+    public boolean isVsComputer() {
+        return game.isVsComputer();
     }
 
-    public Map<Integer, Integer> getResourceIdMap() {
-        return resourceIdMap;
+    public boolean isComputerTurn() {
+        return game.isComputerTurn();
     }
 
-    public Stack<MoveInfo> getMoveHistory() {
-        return moveHistory;
+    public BoardView getChessboard() {
+        return chessboard;
     }
 
-    public FrameLayout getSelectedSquare() {
-        return selectedSquare;
+    public MoveValidator getMoveValidator() {
+        return moveValidator;
     }
 
-    public void setSelectedSquare(FrameLayout square) {
-        this.selectedSquare = square;
+    public GameEvents getGameEvents() {
+        return gameEvents;
     }
 
-    public ImageView getSelectedPiece() {
-        return selectedPiece;
+    public Handler getHandler() {
+        return handler;
     }
 
-    public void setSelectedPiece(ImageView piece) {
-        this.selectedPiece = piece;
+    public Stack<MoveInfo> getMoveHistory() {
+        return game.getMoveHistory();
     }
 
-    public View getSelectionBorder() {
-        return selectionBorder;
+    public Position getPosition() {
+        return game.getPosition();
     }
 
-    public ValueAnimator getBorderAnimator() {
-        return borderAnimator;
+    // piece padding by square, px - the board view draws from it
+    public int[] getPieceInsets() {
+        return game.getPieceInsets();
     }
 
-    public void setBorderAnimator(ValueAnimator animator) {
-        this.borderAnimator = animator;
+    public int getSelectedSquare() {
+        return selectedSquare;
     }
 
-    public Map<FrameLayout, ValueAnimator> getSquareAnimators() {
-        return squareAnimators;
+    public void setSelectedSquare(int square) {
+        this.selectedSquare = square;
     }
 
-    public FrameLayout getLastMoveFromSquare() {
+    public int getLastMoveFromSquare() {
         return lastMoveFromSquare;
     }
 
-    public void setLastMoveFromSquare(FrameLayout square) {
+    public void setLastMoveFromSquare(int square) {
         this.lastMoveFromSquare = square;
     }
 
-    public FrameLayout getLastMoveToSquare() {
+    public int getLastMoveToSquare() {
         return lastMoveToSquare;
     }
 
-    public void setLastMoveToSquare(FrameLayout square) {
+    public void setLastMoveToSquare(int square) {
         this.lastMoveToSquare = square;
     }
 
@@ -378,6 +354,10 @@ public class GameActivity extends AppCompatActivity {
         return boardManager;
     }
 
+    public SaveManager getSaveManager() {
+        return saveManager;
+    }
+
     public MoveManager getMoveManager() {
         return moveManager;
     }
@@ -390,12 +370,16 @@ public class GameActivity extends AppCompatActivity {
         return chessPieceManager;
     }
 
+    public ComputerPlayerManager getComputerPlayerManager() {
+        return computerPlayerManager;
+    }
+
     public boolean getWhiteTurn() {
-        return isWhiteTurn;
+        return game.isWhiteTurn();
     }
 
-    public void setWhiteTurn(boolean whiteTurn) {
-        this.isWhiteTurn = whiteTurn;
+    // the position's side to move changed - the info text follows
+    public void onTurnChanged() {
         updateGameInfoText();
     }
 }
\ No newline at end of file
@@ -1,15 +1,14 @@
 package com.chess.GameActivityManagers;
 
-import android.animation.ArgbEvaluator;
-import android.animation.ValueAnimator;
-import android.graphics.drawable.GradientDrawable;
-import android.view.View;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
-
+import com.chess.BoardView;
+import com.chess.Engine.Bitboards;
 import com.chess.GameActivity;
 
+// pulse colors and timing - the board view runs every pulse off one frame clock
 public class AnimationManager {
+    private static final int BORDER_PULSE_MILLIS = 1000;
+    private static final int SQUARE_PULSE_MILLIS = 500;
+
     private final GameActivity gameActivity;
 
     public AnimationManager(GameActivity gameActivity) {
@@ -17,103 +16,50 @@ public class AnimationManager {
     }
 
     public void setupBorderAnimation() {
-        ValueAnimator borderAnimator = ValueAnimator.ofObject(new ArgbEvaluator(),
-                GameActivity.WHITE_COLOR, GameActivity.BLACK_COLOR);
-        borderAnimator.setDuration(1000);
-        borderAnimator.setRepeatCount(ValueAnimator.INFINITE);
-        borderAnimator.setRepeatMode(ValueAnimator.REVERSE);
-
-        borderAnimator.addUpdateListener(animation -> {
-            int color = (int) animation.getAnimatedValue();
-            try {
-                GradientDrawable border = (GradientDrawable) gameActivity.getSelectionBorder().getBackground();
-                border.setStroke(4, color);
-            } catch (Exception ignored) {}
-        });
-
-        gameActivity.setBorderAnimator(borderAnimator);
+        gameActivity.getChessboard().setSelectionPulse(GameActivity.WHITE_COLOR, GameActivity.BLACK_COLOR,
+                BORDER_PULSE_MILLIS);
     }
 
     public void clearLastMoveHighlights() {
         // clear previous highlighting
-        if (gameActivity.getLastMoveFromSquare() != null) {
-            boolean isDark = gameActivity.getBoardManager().isSquareDark(
-                    gameActivity.getBoardManager().getSquareCoordinates(gameActivity.getLastMoveFromSquare()));
-            setStaticSquareColor(gameActivity.getLastMoveFromSquare(),
-                    isDark ? GameActivity.DARK_SQUARE_COLOR : GameActivity.LIGHT_SQUARE_COLOR);
-            gameActivity.setLastMoveFromSquare(null);
+        long squares = 0;
+        if (gameActivity.getLastMoveFromSquare() != BoardView.NO_SQUARE) {
+            squares |= 1L << gameActivity.getLastMoveFromSquare();
+            gameActivity.getChessboard().clearSquareColor(gameActivity.getLastMoveFromSquare());
+            gameActivity.setLastMoveFromSquare(BoardView.NO_SQUARE);
+        }
+
+        if (gameActivity.getLastMoveToSquare() != BoardView.NO_SQUARE) {
+            squares |= 1L << gameActivity.getLastMoveToSquare();
+            gameActivity.getChessboard().clearSquareColor(gameActivity.getLastMoveToSquare());
+            gameActivity.setLastMoveToSquare(BoardView.NO_SQUARE);
         }
 
-        if (gameActivity.getLastMoveToSquare() != null) {
-            boolean isDark = gameActivity.getBoardManager().isSquareDark(
-                    gameActivity.getBoardManager().getSquareCoordinates(gameActivity.getLastMoveToSquare()));
-            setStaticSquareColor(gameActivity.getLastMoveToSquare(),
-                    isDark ? GameActivity.DARK_SQUARE_COLOR : GameActivity.LIGHT_SQUARE_COLOR);
-            gameActivity.setLastMoveToSquare(null);
+        if (squares != 0) {
+            gameActivity.getGameEvents().publish(GameEvents.HIGHLIGHT_CHANGED, squares);
         }
     }
 
     public void highlightMove(MoveInfo move) {
         // get squares
-        FrameLayout fromSquare = gameActivity.getBoardManager().getSquareAt(move.fromRow, move.fromCol);
-        FrameLayout toSquare = gameActivity.getBoardManager().getSquareAt(move.toRow, move.toCol);
-
-        if (fromSquare == null || toSquare == null) {
-            return;
-        }
+        int fromSquare = Bitboards.square(move.fromRow, move.fromCol);
+        int toSquare = Bitboards.square(move.toRow, move.toCol);
 
         // get board colors
-        boolean isFromDark = gameActivity.getBoardManager().isSquareDark(new int[]{move.fromRow, move.fromCol});
-        boolean isToDark = gameActivity.getBoardManager().isSquareDark(new int[]{move.toRow, move.toCol});
+        boolean isFromDark = gameActivity.getBoardManager().isSquareDark(fromSquare);
+        boolean isToDark = gameActivity.getBoardManager().isSquareDark(toSquare);
 
         int fromBaseColor = isFromDark ? GameActivity.DARK_SQUARE_COLOR : GameActivity.LIGHT_SQUARE_COLOR;
         int toBaseColor = isToDark ? GameActivity.DARK_SQUARE_COLOR : GameActivity.LIGHT_SQUARE_COLOR;
 
         // set animated colors
-        setSquareColor(fromSquare, fromBaseColor, GameActivity.FROM_SQUARE_HIGHLIGHT);
-        setSquareColor(toSquare, toBaseColor, GameActivity.TO_SQUARE_HIGHLIGHT);
+        gameActivity.getChessboard().pulseSquare(fromSquare, fromBaseColor, GameActivity.FROM_SQUARE_HIGHLIGHT,
+                SQUARE_PULSE_MILLIS);
+        gameActivity.getChessboard().pulseSquare(toSquare, toBaseColor, GameActivity.TO_SQUARE_HIGHLIGHT,
+                SQUARE_PULSE_MILLIS);
 
         gameActivity.setLastMoveFromSquare(fromSquare);
         gameActivity.setLastMoveToSquare(toSquare);
+        gameActivity.getGameEvents().publish(GameEvents.HIGHLIGHT_CHANGED, (1L << fromSquare) | (1L << toSquare));
     }
-
-    public void setStaticSquareColor(FrameLayout square, int color) {
-        stopSquareAnimator(square);
-
-        // non-animated color
-        View backgroundView = square.getChildAt(0);
-        if (backgroundView != null && !(backgroundView instanceof ImageView)) {
-            backgroundView.setBackgroundColor(color);
-        }
-    }
-
-    public void stopSquareAnimator(FrameLayout square) {
-        ValueAnimator animator = gameActivity.getSquareAnimators().get(square);
-        if (animator != null && animator.isRunning()) {
-            animator.cancel();
-            gameActivity.getSquareAnimators().remove(square);
-        }
-    }
-
-    public void setSquareColor(FrameLayout square, int fromColor, int toColor) {
-        stopSquareAnimator(square);
-
-        View backgroundView = square.getChildAt(0);
-        if (backgroundView != null && !(backgroundView instanceof ImageView)) {
-            // transition between colors
-            ValueAnimator colorAnimator = ValueAnimator.ofArgb(fromColor, toColor);
-            colorAnimator.setDuration(500);
-            colorAnimator.setRepeatMode(ValueAnimator.REVERSE);
-            colorAnimator.setRepeatCount(ValueAnimator.INFINITE);
-
-            colorAnimator.addUpdateListener(animation -> {
-                int animatedColor = (int) animation.getAnimatedValue();
-                backgroundView.setBackgroundColor(animatedColor);
-            });
-
-            gameActivity.getSquareAnimators().put(square, colorAnimator);
-
-            colorAnimator.start();
-        }
-    }
-}
\ No newline at end of file
+}
@@ -1,153 +1,83 @@
 package com.chess.GameActivityManagers;
 
-import android.annotation.SuppressLint;
-import android.view.View;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
+import android.animation.ValueAnimator;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
 
+import androidx.core.content.ContextCompat;
+
+import com.chess.BoardView;
+import com.chess.Engine.Bitboards;
+import com.chess.Engine.Piece;
+import com.chess.Engine.Position;
 import com.chess.GameActivity;
 import com.chess.R;
 
-import java.util.Map;
-
 public class ChessPieceManager {
+    // drawables by piece code - the only place pieces map to resources
+    private static final int[] PIECE_DRAWABLES = {
+            R.drawable.w_pawn, R.drawable.w_knight, R.drawable.w_bishop,
+            R.drawable.w_rook, R.drawable.w_queen, R.drawable.w_king,
+            R.drawable.b_pawn, R.drawable.b_knight, R.drawable.b_bishop,
+            R.drawable.b_rook, R.drawable.b_queen, R.drawable.b_king
+    };
+
     private final GameActivity gameActivity;
 
     public ChessPieceManager(GameActivity gameActivity) {
         this.gameActivity = gameActivity;
     }
 
-    public void animatePiecePlacement() {
-        final int[][] pieceLayout = {
-                // black pieces
-                {0, 0, R.drawable.b_rook, 4},
-                {0, 1, R.drawable.b_knight, 4},
-                {0, 2, R.drawable.b_bishop, 4},
-                {0, 3, R.drawable.b_queen, 4},
-                {0, 4, R.drawable.b_king, 4},
-                {0, 5, R.drawable.b_bishop, 4},
-                {0, 6, R.drawable.b_knight, 4},
-                {0, 7, R.drawable.b_rook, 4},
-
-                // black pawns
-                {1, 0, R.drawable.b_pawn, 8},
-                {1, 1, R.drawable.b_pawn, 8},
-                {1, 2, R.drawable.b_pawn, 8},
-                {1, 3, R.drawable.b_pawn, 8},
-                {1, 4, R.drawable.b_pawn, 8},
-                {1, 5, R.drawable.b_pawn, 8},
-                {1, 6, R.drawable.b_pawn, 8},
-                {1, 7, R.drawable.b_pawn, 8},
-
-                // white pawns
-                {6, 0, R.drawable.w_pawn, 8},
-                {6, 1, R.drawable.w_pawn, 8},
-                {6, 2, R.drawable.w_pawn, 8},
-                {6, 3, R.drawable.w_pawn, 8},
-                {6, 4, R.drawable.w_pawn, 8},
-                {6, 5, R.drawable.w_pawn, 8},
-                {6, 6, R.drawable.w_pawn, 8},
-                {6, 7, R.drawable.w_pawn, 8},
-
-                // white pieces
-                {7, 0, R.drawable.w_rook, 4},
-                {7, 1, R.drawable.w_knight, 4},
-                {7, 2, R.drawable.w_bishop, 4},
-                {7, 3, R.drawable.w_queen, 4},
-                {7, 4, R.drawable.w_king, 4},
-                {7, 5, R.drawable.w_bishop, 4},
-                {7, 6, R.drawable.w_knight, 4},
-                {7, 7, R.drawable.w_rook, 4}
-        };
-
-        // place pieces at start
-        for (int i = 0; i < pieceLayout.length; i++) {
-            final int[] pieceInfo = pieceLayout[i];
-            final long delay = i * GameActivity.PLACEMENT_DELAY;
-
-            gameActivity.getHandler().postDelayed(() -> {
-                int row = pieceInfo[0];
-                int col = pieceInfo[1];
-                int drawableId = pieceInfo[2];
-                int padding = pieceInfo[3];
-
-                // get square at position
-                FrameLayout square = gameActivity.getBoardManager().getSquareAt(row, col);
-                if (square != null) {
-                    // add piece
-                    placePiece(square, drawableId, padding);
-                }
-            }, delay);
-        }
-    }
-
-    public void placePiece(FrameLayout square, int drawableId, int padding) {
-        // create view for the piece
-        ImageView piece = new ImageView(gameActivity);
-        piece.setImageResource(drawableId);
-        piece.setTag(drawableId);  // Set the tag for resource lookup
-        piece.setLayoutParams(new FrameLayout.LayoutParams(
-                FrameLayout.LayoutParams.MATCH_PARENT,
-                FrameLayout.LayoutParams.MATCH_PARENT
-        ));
-        piece.setPadding(padding, padding, padding, padding);
-
-        // remove existing piece
-        for (int i = 0; i < square.getChildCount(); i++) {
-            View child = square.getChildAt(i);
-            if (child instanceof ImageView) {
-                square.removeView(child);
-                break;
-            }
+    // one drawable per piece code, shared by every square it stands on
+    public void loadPieceDrawables() {
+        Drawable[] drawables = new Drawable[PIECE_DRAWABLES.length];
+        for (int i = 0; i < drawables.length; i++) {
+            drawables[i] = ContextCompat.getDrawable(gameActivity, PIECE_DRAWABLES[i]);
         }
-
-        int insertIndex = 1; // place piece above background
-        square.addView(piece, Math.min(insertIndex, square.getChildCount()));
-
-        // listen for piece activity
-        piece.setOnClickListener(v -> gameActivity.getMoveManager().handlePieceClick(piece, square));
+        gameActivity.getChessboard().setPieceDrawables(drawables);
     }
 
-    public ImageView findPieceInSquare(FrameLayout square) {
-        for (int i = 0; i < square.getChildCount(); i++) {
-            View child = square.getChildAt(i);
-            if (child instanceof ImageView) {
-                return (ImageView) child;
-            }
+    // the start position drawn in one pass - the board takes moves straight away
+    public void placeStartPieces() {
+        Position position = gameActivity.getPosition();
+        int[] insets = gameActivity.getPieceInsets();
+        for (int square = 0; square < 64; square++) {
+            insets[square] = PiecePadding.unmoved(position.pieceAt(square));
         }
-        return null;
+        placePieces(insets);
     }
 
-    @SuppressLint("UseCompatLoadingForDrawables")
-    public int getDrawableResourceId(ImageView imageView) {
-        if (imageView == null) {
-            return -1;
+    // cosmetic only - pieces appear one at a time, top row first, over a board that already plays
+    // a tap shows the rest - skipped when the system has animations turned off
+    public void animatePiecePlacement() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && !ValueAnimator.areAnimatorsEnabled()) {
+            return;
         }
 
-        try {
-            if (imageView.getTag() instanceof Integer) {
-                return (Integer) imageView.getTag();
-            }
-
-            // search in map too, just in case
-            android.graphics.drawable.Drawable drawable = imageView.getDrawable();
-            for (Map.Entry<Integer, Integer> entry : gameActivity.getResourceIdMap().entrySet()) {
-                if (drawable.equals(gameActivity.getResources().getDrawable(entry.getKey(), null))) {
-                    return entry.getValue();
+        BoardView board = gameActivity.getChessboard();
+        Position position = gameActivity.getPosition();
+        board.hideAllPieces();
+        int placed = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                int square = Bitboards.square(row, col);
+                if (position.pieceAt(square) == Piece.NONE) {
+                    continue;
                 }
+                final long delay = placed++ * GameActivity.PLACEMENT_DELAY;
+                gameActivity.getHandler().postDelayed(() -> board.showPiece(square), delay);
             }
-        } catch (Exception ignored) {}
-        return -1;
+        }
     }
 
-    public boolean isPieceWhite(ImageView pieceView) {
-        if (pieceView == null) return false;
-
-        Integer resourceId = (Integer) pieceView.getTag();
-        if (resourceId == null) return false;
-
-        // does resource name starts with "w_"
-        String resourceName = gameActivity.getResources().getResourceEntryName(resourceId);
-        return resourceName != null && resourceName.startsWith("w_");
+    // every piece of the position at once - no animation
+    public void placePieces(int[] paddings) {
+        int[] insets = gameActivity.getPieceInsets();
+        if (paddings != insets) {
+            System.arraycopy(paddings, 0, insets, 0, insets.length);
+        }
+        BoardView board = gameActivity.getChessboard();
+        board.invalidateSquares(-1L);
+        board.showAllPieces();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package com.chess.GameActivityManagers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.chess.Engine.Move;
+import com.chess.Engine.Position;
+import com.chess.Engine.Search;
+import com.chess.GameViewModel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// runs the engine off the main thread and hands its move to the activity showing the game
+// owned by the game view model - a search under way and the table outlive a rotation
+public class ComputerPlayerManager {
+    public interface Listener {
+        void onComputerMove(int move);
+    }
+
+    private static final String TAG = "ComputerPlayer";
+    private static final int TABLE_SIZE_MB = 16;
+    private static final long THINK_TIME_MILLIS = 1000;
+    // one core left for the ui thread
+    private static final int SEARCH_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private final GameViewModel game;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Search search = new Search(TABLE_SIZE_MB, SEARCH_THREADS);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ComputerPlayer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Search.Limits limits = new Search.Limits(0, THINK_TIME_MILLIS, 0);
+
+    // bumped on every request and cancel - older searches are skipped or their results dropped
+    // written on the main thread only, read by the search thread before it starts
+    private volatile int generation = 0;
+
+    // main thread only
+    private Listener listener;
+    private boolean searching = false;
+    private long searchKey; // position the running search is for
+    private int pendingMove = Move.NONE; // found while no activity was listening
+    private long pendingKey;
+
+    public ComputerPlayerManager(GameViewModel game) {
+        this.game = game;
+    }
+
+    // main thread - null while no activity shows the game, a move found meanwhile waits for the next one
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener != null && pendingMove != Move.NONE) {
+            int move = pendingMove;
+            pendingMove = Move.NONE;
+            deliver(move, pendingKey);
+        }
+    }
+
+    public void setLimits(Search.Limits limits) {
+        this.limits = limits;
+    }
+
+    // call on the main thread whenever the side to move changes
+    public void onTurnChanged() {
+        if (!game.isComputerTurn()) {
+            return;
+        }
+
+        // already searching this position - a recreated activity asking again
+        if (searching && searchKey == game.getPosition().key()) {
+            return;
+        }
+
+        cancel();
+        final int requestGeneration = generation;
+        final int stopToken = search.stopToken();
+
+        // the search works on its own copy - the board keeps the original
+        // the played moves come along, so the search sees repetitions of the game so far
+        final Position root = new Position(game.getPosition(), true);
+        final long rootKey = root.key();
+        searching = true;
+        searchKey = rootKey;
+        final Search.Limits requestLimits = limits;
+
+        executor.execute(() -> {
+            // cancelled while queued
+            if (requestGeneration != generation) {
+                return;
+            }
+            Search.Result result = search.search(root, requestLimits, stopToken);
+
+            Log.d(TAG, "best " + Move.toUci(result.bestMove) +
+                    " score " + result.score +
+                    " depth " + result.depth +
+                    " nodes " + result.nodes +
+                    " nps " + result.nodesPerSecond());
+
+            handler.post(() -> {
+                if (requestGeneration != generation) {
+                    return; // cancelled
+                }
+                searching = false;
+                deliver(result.bestMove, rootKey);
+            });
+        });
+    }
+
+    private void deliver(int move, long rootKey) {
+        // stale - undone or the board moved on
+        if (game.getPosition().key() != rootKey || !game.isComputerTurn() || move == Move.NONE) {
+            return;
+        }
+        if (listener == null) {
+            pendingMove = move;
+            pendingKey = rootKey;
+            return;
+        }
+        listener.onComputerMove(move);
+    }
+
+    public void cancel() {
+        generation++;
+        searching = false;
+        pendingMove = Move.NONE;
+        search.stop();
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+        search.shutdown();
+    }
+}
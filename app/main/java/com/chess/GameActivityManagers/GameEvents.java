@@ -0,0 +1,50 @@
+package com.chess.GameActivityManagers;
+
+import com.chess.Engine.Move;
+
+import java.util.ArrayList;
+
+// what changed in the game and which squares it touched - published and delivered on the main thread
+// squares are a bitboard of engine squares, so listeners redo only what those squares need
+public class GameEvents {
+    public static final int MOVE_MADE = 1;
+    public static final int MOVE_UNDONE = 2;
+    public static final int HIGHLIGHT_CHANGED = 3;
+    public static final int GAME_ENDED = 4;
+
+    public interface Listener {
+        void onGameEvent(int type, long squares);
+    }
+
+    private final ArrayList<Listener> listeners = new ArrayList<>();
+
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void publish(int type, long squares) {
+        // indexed - no iterator per event
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onGameEvent(type, squares);
+        }
+    }
+
+    // every square a move changes - the rook's for a castle, the taken pawn's for en passant
+    public static long squaresOf(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long squares = (1L << from) | (1L << to);
+        if (Move.flags(move) == Move.KING_CASTLE) {
+            squares |= (1L << (to + 1)) | (1L << (to - 1));
+        } else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+            squares |= (1L << (to - 2)) | (1L << (to + 1));
+        } else if (Move.isEnPassant(move)) {
+            squares |= 1L << ((from & ~7) | (to & 7));
+        }
+        return squares;
+    }
+}
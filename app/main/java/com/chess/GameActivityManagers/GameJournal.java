@@ -0,0 +1,154 @@
+package com.chess.GameActivityManagers;
+
+import com.chess.Engine.Position;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+// append-only move journal on top of the binary save (the snapshot)
+// every move and undo is one small record written when it happens, compaction rewrites the snapshot
+// records are not synced - they survive the process dying, not the device losing power
+public final class GameJournal implements Closeable {
+    // records since the last snapshot before the game should be compacted
+    public static final int COMPACT_INTERVAL = 64;
+
+    // header: magic, version, crc of the snapshot the records extend
+    private static final int MAGIC = 0x434A4E4C; // "CJNL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 1 + 4;
+
+    // record: type, 16-bit value, check byte
+    private static final int RECORD_BYTES = 4;
+    private static final int MOVE = 1; // value is the move
+    private static final int TRUNCATE = 2; // value is the number of moves kept
+    private static final int CHECK_SEED = 0x5A;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+    private FileChannel channel; // null until the first compaction
+    private int records;
+
+    public GameJournal(File snapshotFile, File journalFile) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFile;
+    }
+
+    public boolean isOpen() {
+        return channel != null;
+    }
+
+    public int records() {
+        return records;
+    }
+
+    // snapshot of the whole game - the first count moves from the start position - then an empty journal on top of it
+    // uncheckedPlies - leading moves of a game migrated from json, see GameStateSerializer.SavedGame
+    public void compact(int[] moves, int count, boolean vsComputer, int uncheckedPlies) throws IOException {
+        ByteBuffer snapshot = GameStateSerializer.toBinary(Position.START_FEN, moves, count, vsComputer, uncheckedPlies);
+        int snapshotCrc = snapshot.getInt(snapshot.limit() - 4);
+
+        // a crash from here on leaves an old journal that no longer matches the snapshot, so it is ignored
+        writeAtomically(snapshotFile, snapshot);
+
+        close();
+        channel = new FileOutputStream(journalFile).getChannel();
+        header.clear();
+        header.putInt(MAGIC).put((byte) VERSION).putInt(snapshotCrc);
+        header.flip();
+        write(header);
+        records = 0;
+    }
+
+    public void appendMove(int move) throws IOException {
+        append(MOVE, move);
+    }
+
+    // undo - the game is cut back to its first ply moves
+    public void appendTruncate(int ply) throws IOException {
+        append(TRUNCATE, ply);
+    }
+
+    private void append(int type, int value) throws IOException {
+        if (channel == null) {
+            throw new IOException("journal not open");
+        }
+        record.clear();
+        record.put((byte) type).putShort((short) value).put(check(type, value));
+        record.flip();
+        write(record);
+        records++;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // the snapshot with the journal's records played on top
+    // a journal for another snapshot is ignored, and reading stops at the first torn or damaged record
+    public static GameStateSerializer.SavedGame apply(GameStateSerializer.SavedGame snapshot, ByteBuffer journal) {
+        if (journal.remaining() < HEADER_BYTES
+                || journal.getInt() != MAGIC
+                || journal.get() != VERSION
+                || journal.getInt() != snapshot.checksum) {
+            return snapshot;
+        }
+
+        int[] moves = Arrays.copyOf(snapshot.moves, snapshot.moves.length + journal.remaining() / RECORD_BYTES);
+        int count = snapshot.moves.length;
+        int uncheckedPlies = snapshot.uncheckedPlies;
+        while (journal.remaining() >= RECORD_BYTES) {
+            int type = journal.get();
+            int value = journal.getShort() & 0xFFFF;
+            if (journal.get() != check(type, value)) {
+                break;
+            }
+            if (type == MOVE) {
+                moves[count++] = value;
+            } else if (type == TRUNCATE && value <= count) {
+                count = value;
+                uncheckedPlies = Math.min(uncheckedPlies, count); // moves played after an undo are checked
+            } else {
+                break;
+            }
+        }
+
+        return new GameStateSerializer.SavedGame(snapshot.startFen, Arrays.copyOf(moves, count),
+                snapshot.vsComputer, snapshot.checksum, uncheckedPlies);
+    }
+
+    private static byte check(int type, int value) {
+        return (byte) (CHECK_SEED ^ type ^ (value >>> 8) ^ value);
+    }
+
+    // written beside the old file and renamed over it - a crash mid-write keeps the previous one
+    static void writeAtomically(File file, ByteBuffer data) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = new FileOutputStream(temp).getChannel()) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(false);
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("could not replace " + file);
+        }
+    }
+}
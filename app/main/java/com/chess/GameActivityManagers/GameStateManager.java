@@ -4,91 +4,219 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import java.lang.reflect.Type;
+import com.chess.Engine.Piece;
+import com.chess.Engine.Position;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Stack;
 
 public class GameStateManager {
+    private static final String SAVE_FILE = "game.sav";
+    private static final String JOURNAL_FILE = "game.journal";
+    private static final String METADATA_FILE = "game.meta";
+    private static final long MAX_SAVE_BYTES = 1 << 20;
+    private static final String TAG = "GameStateManager";
+
+    // older versions kept the game as json in shared preferences
     private static final String PREF_NAME = "ChessGamePrefs";
     private static final String KEY_MOVE_HISTORY = "moveHistory";
     private static final String KEY_IS_WHITE_TURN = "isWhiteTurn";
-    private static final String TAG = "GameStateManager";
+    private static final String KEY_VS_COMPUTER = "vsComputer";
+
+    // writes nothing until its first compaction
+    public static GameJournal createJournal(Context context) {
+        return new GameJournal(saveFile(context), new File(context.getFilesDir(), JOURNAL_FILE));
+    }
 
-    public static void saveGameState(Context context, Stack<MoveInfo> moveHistory, boolean isWhiteTurn) {
-        if (moveHistory.isEmpty()) {
-            Log.d(TAG, "No moves to save");
-            return;
+    public static File metadataFile(Context context) {
+        return new File(context.getFilesDir(), METADATA_FILE);
+    }
+
+    // ply count, side to move and save time without reading the game - null when there is no readable record
+    public static GameStateSerializer.SaveMetadata readSaveMetadata(Context context) {
+        File file = metadataFile(context);
+        if (!file.exists()) {
+            return null;
         }
+        try {
+            return GameStateSerializer.fromMetadata(readSaveFile(file));
+        } catch (IOException e) {
+            Log.w(TAG, "Save metadata unreadable", e);
+            return null;
+        }
+    }
 
+    // a game worth resuming - the metadata record answers when there is one
+    public static boolean hasSavedGame(Context context) {
+        GameStateSerializer.SaveMetadata metadata = readSaveMetadata(context);
+        if (metadata != null) {
+            return metadata.ply > 0;
+        }
+
+        // saved before the record existed
+        if (saveFile(context).exists()) {
+            return true;
+        }
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
+        String movesJson = prefs.getString(KEY_MOVE_HISTORY, null);
+        return movesJson != null && !movesJson.isEmpty();
+    }
 
-        // convert move info stack to ArrayList
-        ArrayList<MoveInfo> moveList = new ArrayList<>(moveHistory);
+    // plays the saved game onto position without touching any view - left at the start position on failure
+    public static GameState loadGameState(Context context, Position position) {
+        long start = System.nanoTime();
+        int[] piecePaddings = new int[64];
+        ArrayList<MoveInfo> moveList;
+        boolean vsComputer;
+        int uncheckedPlies;
+        try {
+            ByteBuffer data = readSaveData(context);
+            if (data == null) {
+                Log.d(TAG, "No saved game found");
+                return null;
+            }
+
+            GameStateSerializer.SavedGame savedGame = GameStateSerializer.fromBinary(data);
+
+            // moves and undos since the save was written
+            File journalFile = new File(context.getFilesDir(), JOURNAL_FILE);
+            if (journalFile.exists()) {
+                savedGame = GameJournal.apply(savedGame, readSaveFile(journalFile));
+            }
+            moveList = GameStateSerializer.toMoveHistory(savedGame, position, piecePaddings);
+            vsComputer = savedGame.vsComputer;
+            uncheckedPlies = savedGame.uncheckedPlies;
+        } catch (IOException e) {
+            Log.e(TAG, "Saved game unreadable", e);
+            position.setStartPosition();
+            return null;
+        }
 
-        // convert ArrayList to JSON
-        Gson gson = new Gson();
-        String movesJson = gson.toJson(moveList);
+        // convert ArrayList back to stack
+        Stack<MoveInfo> moveHistory = new Stack<>();
+        moveHistory.addAll(moveList);
+        boolean isWhiteTurn = position.sideToMove() == Piece.WHITE;
 
-        // save data
-        editor.putString(KEY_MOVE_HISTORY, movesJson);
-        editor.putBoolean(KEY_IS_WHITE_TURN, isWhiteTurn);
-        editor.apply();
+        Log.d(TAG, "Game loaded: " + moveHistory.size() + " moves, " +
+                (isWhiteTurn ? "White's turn" : "Black's turn") + ", " +
+                (System.nanoTime() - start) / 1000 + " us");
 
-        Log.d(TAG, "Game saved: " + moveList.size() + " moves, " +
-                (isWhiteTurn ? "White's turn" : "Black's turn"));
+        return new GameState(moveHistory, vsComputer, piecePaddings, uncheckedPlies);
     }
 
-    public static boolean hasSavedGame(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        String movesJson = prefs.getString(KEY_MOVE_HISTORY, null);
-        return movesJson != null && !movesJson.isEmpty();
+    private static File saveFile(Context context) {
+        return new File(context.getFilesDir(), SAVE_FILE);
     }
 
-    public static GameState loadGameState(Context context) {
+    // the binary save, or an old json save converted to it - null when there is neither
+    private static ByteBuffer readSaveData(Context context) throws IOException {
+        File file = saveFile(context);
+        if (file.exists()) {
+            return readSaveFile(file);
+        }
+
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         String movesJson = prefs.getString(KEY_MOVE_HISTORY, null);
-        boolean isWhiteTurn = prefs.getBoolean(KEY_IS_WHITE_TURN, true);
-
         if (movesJson == null || movesJson.isEmpty()) {
-            Log.d(TAG, "No saved game found");
             return null;
         }
 
-        // convert JSON to ArrayList
-        Gson gson = new Gson();
-        Type moveListType = new TypeToken<ArrayList<MoveInfo>>(){}.getType();
-        ArrayList<MoveInfo> moveList = gson.fromJson(movesJson, moveListType);
+        // old saves hold board coordinates only - replay them to get the engine moves
+        Position position = new Position();
+        try {
+            ArrayList<MoveInfo> oldHistory;
+            try {
+                oldHistory = GameStateSerializer.fromJson(movesJson);
+            } catch (JsonParseException e) {
+                throw new IOException("old save unreadable", e);
+            }
+            if (oldHistory == null) {
+                throw new IOException("old save empty");
+            }
+            GameStateSerializer.playHistory(oldHistory, position);
+        } catch (IOException e) {
+            // never replayable - drop it, or the menu keeps offering a resume that fails
+            Log.e(TAG, "Old json save dropped", e);
+            clearOldSave(prefs);
+            throw e;
+        }
+        // flagged so the replay lets the old moves through again - only these, later moves are checked
+        int[] moves = new int[position.ply()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = position.moveAt(i);
+        }
+        ByteBuffer data = GameStateSerializer.toBinary(Position.START_FEN, moves, moves.length,
+                prefs.getBoolean(KEY_VS_COMPUTER, false), moves.length);
 
-        // convert ArrayList back to stack
-        Stack<MoveInfo> moveHistory = new Stack<>();
-        moveHistory.addAll(moveList);
+        GameJournal.writeAtomically(saveFile(context), data.duplicate());
+        clearOldSave(prefs);
 
-        Log.d(TAG, "Game loaded: " + moveHistory.size() + " moves, " +
-                (isWhiteTurn ? "White's turn" : "Black's turn"));
+        Log.d(TAG, "Migrated json save: " + movesJson.length() + " chars -> " + data.remaining() + " bytes");
+        return data;
+    }
 
-        return new GameState(moveHistory, isWhiteTurn);
+    private static void clearOldSave(SharedPreferences prefs) {
+        prefs.edit()
+                .remove(KEY_MOVE_HISTORY)
+                .remove(KEY_IS_WHITE_TURN)
+                .remove(KEY_VS_COMPUTER)
+                .apply();
+    }
+
+    private static ByteBuffer readSaveFile(File file) throws IOException {
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            long size = channel.size();
+            if (size > MAX_SAVE_BYTES) {
+                throw new IOException("save file too large: " + size + " bytes");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("save file truncated");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
     }
 
     // game state
     public static class GameState {
         private final Stack<MoveInfo> moveHistory;
-        private final boolean isWhiteTurn;
+        private final boolean vsComputer;
+        private final int[] piecePaddings; // by square
+        private final int uncheckedPlies;
 
-        public GameState(Stack<MoveInfo> moveHistory, boolean isWhiteTurn) {
+        // side to move is the position's - loadGameState leaves it there
+        public GameState(Stack<MoveInfo> moveHistory, boolean vsComputer, int[] piecePaddings, int uncheckedPlies) {
             this.moveHistory = moveHistory;
-            this.isWhiteTurn = isWhiteTurn;
+            this.vsComputer = vsComputer;
+            this.piecePaddings = piecePaddings;
+            this.uncheckedPlies = uncheckedPlies;
         }
 
         public Stack<MoveInfo> getMoveHistory() {
             return moveHistory;
         }
 
-        public boolean isWhiteTurn() {
-            return isWhiteTurn;
+        public boolean isVsComputer() {
+            return vsComputer;
+        }
+
+        public int[] getPiecePaddings() {
+            return piecePaddings;
+        }
+
+        // leading moves migrated from an old json save, see GameStateSerializer.SavedGame
+        public int getUncheckedPlies() {
+            return uncheckedPlies;
         }
     }
-}
\ No newline at end of file
+}
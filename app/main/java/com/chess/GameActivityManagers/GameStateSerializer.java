@@ -0,0 +1,326 @@
+package com.chess.GameActivityManagers;
+
+import com.chess.Engine.Bitboards;
+import com.chess.Engine.Move;
+import com.chess.Engine.MoveGenerator;
+import com.chess.Engine.MoveList;
+import com.chess.Engine.Piece;
+import com.chess.Engine.Position;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// saved games - binary format, plus the old json history for migration
+// no android types, so it also runs in the jvm benchmarks
+public final class GameStateSerializer {
+    private static final Gson GSON = new Gson();
+    private static final Type MOVE_LIST_TYPE = new TypeToken<ArrayList<MoveInfo>>(){}.getType();
+
+    // binary layout, big endian:
+    // magic, version, flags, start fen length + ascii, move count, 16-bit moves, crc32 of everything before it
+    // with FLAG_UNCHECKED a 16-bit count of unchecked plies sits between the fen and the move count
+    private static final int MAGIC = 0x43534156; // "CSAV"
+    private static final int VERSION = 1;
+    private static final int FLAG_VS_COMPUTER = 1;
+    private static final int FLAG_UNCHECKED = 2;
+    private static final int HEADER_BYTES = 4 + 1 + 1 + 2;
+    private static final int CRC_BYTES = 4;
+
+    // metadata record - enough to offer a resume without reading the game
+    // magic, version, ply count, white to move, saved time in millis, crc32 - fixed size, rewritten in place
+    private static final int META_MAGIC = 0x434D4554; // "CMET"
+    private static final int META_VERSION = 1;
+    public static final int METADATA_BYTES = 4 + 1 + 4 + 1 + 8 + CRC_BYTES;
+
+    public static final class SavedGame {
+        public final String startFen;
+        public final int[] moves;
+        public final boolean vsComputer;
+        public final int checksum; // crc of the save it was read from
+        // leading moves migrated from an old json save - replayed without the legality check, every later move is checked
+        public final int uncheckedPlies;
+
+        SavedGame(String startFen, int[] moves, boolean vsComputer, int checksum, int uncheckedPlies) {
+            this.startFen = startFen;
+            this.moves = moves;
+            this.vsComputer = vsComputer;
+            this.checksum = checksum;
+            this.uncheckedPlies = uncheckedPlies;
+        }
+    }
+
+    public static final class SaveMetadata {
+        public final int ply;
+        public final boolean whiteToMove;
+        public final long savedAtMillis;
+
+        SaveMetadata(int ply, boolean whiteToMove, long savedAtMillis) {
+            this.ply = ply;
+            this.whiteToMove = whiteToMove;
+            this.savedAtMillis = savedAtMillis;
+        }
+    }
+
+    private GameStateSerializer() {}
+
+    public static String toJson(List<MoveInfo> moves) {
+        return GSON.toJson(moves, MOVE_LIST_TYPE);
+    }
+
+    public static ArrayList<MoveInfo> fromJson(String json) {
+        return GSON.fromJson(json, MOVE_LIST_TYPE);
+    }
+
+    // every move in the position's undo history, played from startFen
+    public static ByteBuffer toBinary(String startFen, Position position, boolean vsComputer) {
+        int[] moves = new int[position.ply()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = position.moveAt(i);
+        }
+        return toBinary(startFen, moves, moves.length, vsComputer);
+    }
+
+    // the first count moves, played from startFen - moves fit in 16 bits as they are
+    public static ByteBuffer toBinary(String startFen, int[] moves, int count, boolean vsComputer) {
+        return toBinary(startFen, moves, count, vsComputer, 0);
+    }
+
+    // uncheckedPlies - only for games migrated from json, see SavedGame
+    public static ByteBuffer toBinary(String startFen, int[] moves, int count, boolean vsComputer, int uncheckedPlies) {
+        byte[] fen = startFen.getBytes(StandardCharsets.US_ASCII);
+        uncheckedPlies = Math.min(uncheckedPlies, count);
+        int flags = (vsComputer ? FLAG_VS_COMPUTER : 0) | (uncheckedPlies > 0 ? FLAG_UNCHECKED : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + fen.length + (uncheckedPlies > 0 ? 2 : 0)
+                + 4 + count * 2 + CRC_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) flags);
+        buffer.putShort((short) fen.length);
+        buffer.put(fen);
+        if (uncheckedPlies > 0) {
+            buffer.putShort((short) uncheckedPlies);
+        }
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putShort((short) moves[i]);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    // heap buffers only - checks the crc before trusting any field
+    public static SavedGame fromBinary(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        int end = buffer.limit() - CRC_BYTES;
+        if (end - start < HEADER_BYTES + 4) {
+            throw new IOException("save truncated");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, end - start);
+        int checksum = buffer.getInt(end);
+        if (checksum != (int) crc.getValue()) {
+            throw new IOException("save checksum mismatch");
+        }
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("not a save file");
+        }
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("unsupported save version " + version);
+        }
+        int flags = buffer.get();
+        boolean vsComputer = (flags & FLAG_VS_COMPUTER) != 0;
+
+        int fenLength = buffer.getShort() & 0xFFFF;
+        if (fenLength > end - buffer.position() - 4) {
+            throw new IOException("save truncated");
+        }
+        byte[] fen = new byte[fenLength];
+        buffer.get(fen);
+
+        int uncheckedPlies = 0;
+        if ((flags & FLAG_UNCHECKED) != 0) {
+            if (end - buffer.position() < 2 + 4) {
+                throw new IOException("save truncated");
+            }
+            uncheckedPlies = buffer.getShort() & 0xFFFF;
+        }
+
+        int count = buffer.getInt();
+        if (count < 0 || count * 2L != end - buffer.position()) {
+            throw new IOException("save move count mismatch");
+        }
+        if (uncheckedPlies > count) {
+            throw new IOException("save unchecked plies past the last move");
+        }
+        int[] moves = new int[count];
+        for (int i = 0; i < count; i++) {
+            moves[i] = buffer.getShort() & 0xFFFF;
+        }
+        buffer.position(buffer.limit());
+
+        return new SavedGame(new String(fen, StandardCharsets.US_ASCII), moves, vsComputer, checksum, uncheckedPlies);
+    }
+
+    public static ByteBuffer toMetadata(int ply, boolean whiteToMove, long savedAtMillis) {
+        ByteBuffer buffer = ByteBuffer.allocate(METADATA_BYTES);
+        buffer.putInt(META_MAGIC);
+        buffer.put((byte) META_VERSION);
+        buffer.putInt(ply);
+        buffer.put((byte) (whiteToMove ? 1 : 0));
+        buffer.putLong(savedAtMillis);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    // heap buffers only - a torn or foreign record fails the crc
+    public static SaveMetadata fromMetadata(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() != METADATA_BYTES) {
+            throw new IOException("metadata size mismatch");
+        }
+        int start = buffer.position();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, METADATA_BYTES - CRC_BYTES);
+        if (buffer.getInt(start + METADATA_BYTES - CRC_BYTES) != (int) crc.getValue()) {
+            throw new IOException("metadata checksum mismatch");
+        }
+        if (buffer.getInt() != META_MAGIC || buffer.get() != META_VERSION) {
+            throw new IOException("not a metadata record");
+        }
+
+        int ply = buffer.getInt();
+        boolean whiteToMove = buffer.get() != 0;
+        long savedAtMillis = buffer.getLong();
+        buffer.position(buffer.limit());
+        return new SaveMetadata(ply, whiteToMove, savedAtMillis);
+    }
+
+    // plays a saved game onto position and rebuilds the history the board would have recorded
+    // padding receives the view padding of the piece on each square at the end
+    public static ArrayList<MoveInfo> toMoveHistory(SavedGame game, Position position, int[] padding) throws IOException {
+        try {
+            position.setFen(game.startFen);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("bad start position", e);
+        }
+
+        for (int square = 0; square < 64; square++) {
+            padding[square] = PiecePadding.unmoved(position.pieceAt(square));
+        }
+
+        MoveList legalMoves = new MoveList();
+        ArrayList<MoveInfo> history = new ArrayList<>(game.moves.length);
+        for (int move : game.moves) {
+            int from = Move.from(move);
+            int to = Move.to(move);
+
+            // a migrated json game may open with moves the old validator let through - see playHistory
+            // everything after them, and every native save, must be legal
+            boolean isUnchecked = history.size() < game.uncheckedPlies;
+            if (isUnchecked) {
+                if (!isPlayable(position, from, to) || position.createMove(from, to) != move) {
+                    throw new IOException("unplayable move " + Move.toUci(move) + " at ply " + history.size());
+                }
+            } else {
+                if (history.size() > 0 && history.size() == game.uncheckedPlies) {
+                    checkNoKingInCheck(position);
+                }
+                MoveGenerator.generateLegalMoves(position, legalMoves);
+                if (!legalMoves.contains(move)) {
+                    throw new IOException("illegal move " + Move.toUci(move) + " at ply " + history.size());
+                }
+            }
+
+            int fromRow = Bitboards.row(from);
+            int fromCol = Bitboards.col(from);
+            int toRow = Bitboards.row(to);
+            int toCol = Bitboards.col(to);
+
+            // en passant takes the pawn beside the target square
+            int capturedSquare = Move.isEnPassant(move) ? Bitboards.square(fromRow, toCol) : to;
+            int captured = Move.isCapture(move) ? position.pieceAt(capturedSquare) : Piece.NONE;
+
+            MoveInfo info = new MoveInfo(fromRow, fromCol, toRow, toCol,
+                    position.pieceAt(from), padding[from],
+                    captured, captured == Piece.NONE ? 0 : padding[capturedSquare],
+                    (fromRow + fromCol) % 2 == 1, (toRow + toCol) % 2 == 1);
+            info.wasEnPassant = Move.isEnPassant(move);
+            info.wasPromotion = Move.isPromotion(move);
+
+            // rook keeps its padding when it castles
+            if (Move.isCastle(move)) {
+                boolean isKingside = toCol == 6;
+                info.wasCastling = true;
+                info.rookFromCol = isKingside ? 7 : 0;
+                info.rookToCol = isKingside ? 5 : 3;
+                padding[Bitboards.square(fromRow, info.rookToCol)] = padding[Bitboards.square(fromRow, info.rookFromCol)];
+            }
+            padding[to] = info.wasPromotion ? PiecePadding.PROMOTED : PiecePadding.MOVED;
+
+            position.makeMove(move);
+            info.positionKey = position.key();
+            history.add(info);
+        }
+        if (game.uncheckedPlies > 0 && game.uncheckedPlies == history.size()) {
+            checkNoKingInCheck(position);
+        }
+        return history;
+    }
+
+    // plays a recorded history from the start position - used to convert old json saves
+    // no legality check - the old validator let some illegal moves through, moving into check among them
+    // rejected if it ends with a king that could be taken, which the old game would have ended on
+    public static void playHistory(List<MoveInfo> history, Position position) throws IOException {
+        position.setStartPosition();
+        for (MoveInfo info : history) {
+            if (!isOnBoard(info.fromRow, info.fromCol) || !isOnBoard(info.toRow, info.toCol)) {
+                throw new IOException("square off the board in history at ply " + position.ply());
+            }
+            int from = Bitboards.square(info.fromRow, info.fromCol);
+            int to = Bitboards.square(info.toRow, info.toCol);
+            if (!isPlayable(position, from, to)) {
+                throw new IOException("unplayable move in history at ply " + position.ply());
+            }
+            position.makeMove(position.createMove(from, to));
+        }
+        checkNoKingInCheck(position);
+    }
+
+    // the side that just moved may not be left in check - the side to move could take its king
+    private static void checkNoKingInCheck(Position position) throws IOException {
+        if (position.isInCheck(position.sideToMove() ^ 1)) {
+            throw new IOException("king left in check at ply " + position.ply());
+        }
+    }
+
+    private static boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+
+    // all the old validator promised - a piece of the side to move, not landing on its own side or a king
+    private static boolean isPlayable(Position position, int from, int to) {
+        int piece = position.pieceAt(from);
+        int target = position.pieceAt(to);
+        return from != to && piece != Piece.NONE && Piece.color(piece) == position.sideToMove()
+                && (target == Piece.NONE
+                    || (Piece.color(target) != position.sideToMove() && Piece.type(target) != Piece.KING));
+    }
+}
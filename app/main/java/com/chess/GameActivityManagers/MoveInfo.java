@@ -3,31 +3,51 @@ package com.chess.GameActivityManagers;
 public class MoveInfo {
     public int fromRow, fromCol;
     public int toRow, toCol;
-    public int pieceDrawableId;
+    public int piece; // Piece code
     public int piecePadding;
-    public int capturedPieceDrawableId;
+    public int capturedPiece; // Piece code, Piece.NONE if nothing was captured
     public int capturedPiecePadding;
     public boolean isFromSquareDark;
     public boolean isToSquareDark;
     public boolean wasPromotion = false;
-    public Integer originalPieceId = null;
     public boolean wasCastling = false;
     public int rookFromCol = -1;
     public int rookToCol = -1;
+    public boolean wasEnPassant = false;
+    public long positionKey; // zobrist key after the move
+
+    // filled in by set
+    MoveInfo() {
+    }
 
     public MoveInfo(int fromRow, int fromCol, int toRow, int toCol,
-                    int pieceDrawableId, int piecePadding,
-                    int capturedPieceDrawableId, int capturedPiecePadding,
+                    int piece, int piecePadding,
+                    int capturedPiece, int capturedPiecePadding,
+                    boolean isFromSquareDark, boolean isToSquareDark) {
+        set(fromRow, fromCol, toRow, toCol, piece, piecePadding,
+                capturedPiece, capturedPiecePadding, isFromSquareDark, isToSquareDark);
+    }
+
+    // a record taken back by undo, reused for the next move - every field is rewritten
+    public void set(int fromRow, int fromCol, int toRow, int toCol,
+                    int piece, int piecePadding,
+                    int capturedPiece, int capturedPiecePadding,
                     boolean isFromSquareDark, boolean isToSquareDark) {
         this.fromRow = fromRow;
         this.fromCol = fromCol;
         this.toRow = toRow;
         this.toCol = toCol;
-        this.pieceDrawableId = pieceDrawableId;
+        this.piece = piece;
         this.piecePadding = piecePadding;
-        this.capturedPieceDrawableId = capturedPieceDrawableId;
+        this.capturedPiece = capturedPiece;
         this.capturedPiecePadding = capturedPiecePadding;
         this.isFromSquareDark = isFromSquareDark;
         this.isToSquareDark = isToSquareDark;
+        this.wasPromotion = false;
+        this.wasCastling = false;
+        this.rookFromCol = -1;
+        this.rookToCol = -1;
+        this.wasEnPassant = false;
+        this.positionKey = 0;
     }
 }
\ No newline at end of file
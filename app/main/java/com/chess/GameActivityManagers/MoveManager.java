@@ -1,64 +1,91 @@
 package com.chess.GameActivityManagers;
 
 import android.util.Log;
-import android.view.View;
-import android.view.ViewGroup;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
-
-import androidx.annotation.NonNull;
 
+import com.chess.BoardView;
+import com.chess.Engine.Bitboards;
+import com.chess.Engine.Move;
+import com.chess.Engine.MoveGenerator;
+import com.chess.Engine.Piece;
+import com.chess.Engine.Position;
 import com.chess.GameActivity;
 
+import java.util.ArrayDeque;
+
+// squares are engine squares - the board view draws whatever the position holds
 public class MoveManager {
     private static final String DEBUG_TAG = "ChessDebug";
+    // debug strings are only built when enabled - adb shell setprop log.tag.ChessDebug DEBUG
+    private static final boolean DEBUG = Log.isLoggable(DEBUG_TAG, Log.DEBUG);
+
+    // move records dropped by undo, reused by the next moves
+    private static final int MAX_SPARE_MOVES = 64;
+
     private final GameActivity gameActivity;
-    private boolean handlingCapture = false;
+    private final ArrayDeque<MoveInfo> spareMoves = new ArrayDeque<>(MAX_SPARE_MOVES);
 
     public MoveManager(GameActivity gameActivity) {
         this.gameActivity = gameActivity;
     }
 
-    public void handlePieceClick(ImageView piece, FrameLayout square) {
-        if (gameActivity.isGameOver()) {
+    // every tap on the board
+    public void handleSquareClick(int square) {
+        if (gameActivity.isGameOver() || gameActivity.isComputerTurn()) {
             return;
         }
 
-        // get current parent of clicked piece
-        ViewGroup currentParent = (ViewGroup) piece.getParent();
-        FrameLayout currentSquare = (currentParent instanceof FrameLayout) ? (FrameLayout) currentParent : square;
+        if (gameActivity.getPosition().pieceAt(square) != Piece.NONE) {
+            handlePieceClick(square);
+        } else if (gameActivity.getSelectedSquare() != BoardView.NO_SQUARE) {
+            // moving to empty squares
+            // continue if piece color matches player turn
+            boolean isSelectedPieceWhite = Piece.isWhite(gameActivity.getPosition().pieceAt(gameActivity.getSelectedSquare()));
+            if (isSelectedPieceWhite != gameActivity.getWhiteTurn()) {
+                return; // wrong player turn
+            }
 
-        // DEBUG INFO
-        Integer pieceId = (Integer) piece.getTag();
-        String pieceName = pieceId != null ? gameActivity.getResources().getResourceEntryName(pieceId) : "unknown";
-        boolean isPieceWhite = gameActivity.getChessPieceManager().isPieceWhite(piece);
-        int[] coords = gameActivity.getBoardManager().getSquareCoordinates(currentSquare);
+            // check if valid move
+            if (!isValidMove(gameActivity.getSelectedSquare(), square)) {
+                return; // invalid
+            }
 
-        Log.d(DEBUG_TAG, "PIECE CLICK: " + pieceName + " at " +
-                (coords != null ? coords[0] + "," + coords[1] : "unknown") +
-                " isPieceWhite=" + isPieceWhite +
-                " isWhiteTurn=" + gameActivity.getWhiteTurn());
+            // valid - continue
+            commitMove(gameActivity.getSelectedSquare(), square);
+        }
+    }
 
-        // check if a piece is already selected
-        if (gameActivity.getSelectedPiece() != null) {
-            boolean isSelectedPieceWhite = gameActivity.getChessPieceManager().isPieceWhite(gameActivity.getSelectedPiece());
-            boolean isClickedPieceWhite = gameActivity.getChessPieceManager().isPieceWhite(piece);
+    private void handlePieceClick(int square) {
+        int pieceCode = gameActivity.getPosition().pieceAt(square);
+        boolean isPieceWhite = Piece.isWhite(pieceCode);
 
-            Integer selectedPieceId = (Integer) gameActivity.getSelectedPiece().getTag();
-            String selectedPieceName = selectedPieceId != null ?
-                    gameActivity.getResources().getResourceEntryName(selectedPieceId) : "unknown";
+        // DEBUG INFO
+        if (DEBUG) {
+            Log.d(DEBUG_TAG, "PIECE CLICK: " + Piece.toChar(pieceCode) + " at " +
+                    Bitboards.row(square) + "," + Bitboards.col(square) +
+                    " isPieceWhite=" + isPieceWhite +
+                    " isWhiteTurn=" + gameActivity.getWhiteTurn());
+        }
 
-            Log.d(DEBUG_TAG, "EXISTING SELECTION: " + selectedPieceName +
-                    " isSelectedPieceWhite=" + isSelectedPieceWhite +
-                    " isClickedPieceWhite=" + isClickedPieceWhite);
+        // check if a piece is already selected
+        int selectedSquare = gameActivity.getSelectedSquare();
+        if (selectedSquare != BoardView.NO_SQUARE) {
+            int selectedPieceCode = gameActivity.getPosition().pieceAt(selectedSquare);
+            boolean isSelectedPieceWhite = Piece.isWhite(selectedPieceCode);
+
+            if (DEBUG) {
+                Log.d(DEBUG_TAG, "EXISTING SELECTION: " + Piece.toChar(selectedPieceCode) +
+                        " isSelectedPieceWhite=" + isSelectedPieceWhite +
+                        " isClickedPieceWhite=" + isPieceWhite);
+            }
 
             // if clicked on opponent piece, treat as capture attempt
-            if (isSelectedPieceWhite != isClickedPieceWhite &&
+            if (isSelectedPieceWhite != isPieceWhite &&
                     isSelectedPieceWhite == gameActivity.getWhiteTurn()) {
 
-                Log.d(DEBUG_TAG, "CAPTURE ATTEMPT: Redirecting to handleSquareClick with CURRENT square");
-                // use current square
-                handleSquareClickCapture(gameActivity.getSelectedPiece(), gameActivity.getSelectedSquare(), currentSquare);
+                if (DEBUG) {
+                    Log.d(DEBUG_TAG, "CAPTURE ATTEMPT: Redirecting to handleSquareClickCapture");
+                }
+                handleSquareClickCapture(selectedSquare, square);
                 return;
             }
         }
@@ -66,386 +93,187 @@ public class MoveManager {
         // piece selection logic
         // check player turn
         if (isPieceWhite != gameActivity.getWhiteTurn()) {
-            Log.d(DEBUG_TAG, "REJECTED: Not this player's turn");
+            if (DEBUG) {
+                Log.d(DEBUG_TAG, "REJECTED: Not this player's turn");
+            }
             return;
         }
 
-        if (gameActivity.getSelectedPiece() == piece) {
-            Log.d(DEBUG_TAG, "DESELECT: Same piece clicked again");
+        if (selectedSquare == square) {
+            if (DEBUG) {
+                Log.d(DEBUG_TAG, "DESELECT: Same piece clicked again");
+            }
             clearSelection();
         } else {
             clearSelection();
-            Log.d(DEBUG_TAG, "SELECT: New piece selected");
-
-            // use current parent for selection
-            selectPiece(piece, currentSquare);
+            if (DEBUG) {
+                Log.d(DEBUG_TAG, "SELECT: New piece selected");
+            }
+            selectPiece(square);
         }
     }
 
     // moving to non-empty squares
-    private void handleSquareClickCapture(ImageView attackingPiece, FrameLayout fromSquare, FrameLayout targetSquare) {
-        // get coordinates for move validation
-        int[] fromCoords = gameActivity.getBoardManager().getSquareCoordinates(fromSquare);
-        int[] toCoords = gameActivity.getBoardManager().getSquareCoordinates(targetSquare);
-
-        if (fromCoords == null || toCoords == null) {
-            Log.e(DEBUG_TAG, "ERROR: Could not get coordinates for capture attempt");
-            return;
+    private void handleSquareClickCapture(int fromSquare, int targetSquare) {
+        if (DEBUG) {
+            Log.d(DEBUG_TAG, "CAPTURE ATTEMPT: From " + Bitboards.row(fromSquare) + "," + Bitboards.col(fromSquare) +
+                    " To " + Bitboards.row(targetSquare) + "," + Bitboards.col(targetSquare));
         }
 
-        Log.d(DEBUG_TAG, "CAPTURE ATTEMPT: From " + fromCoords[0] + "," + fromCoords[1] +
-                " To " + toCoords[0] + "," + toCoords[1]);
-
         // check if valid move
-        boolean isValid = gameActivity.getMoveValidator().isValidMove(
-                fromCoords[0], fromCoords[1],
-                toCoords[0], toCoords[1],
-                attackingPiece);
+        boolean isValid = isValidMove(fromSquare, targetSquare);
 
-        Log.d(DEBUG_TAG, "CAPTURE VALIDATION: " + (isValid ? "VALID" : "INVALID"));
+        if (DEBUG) {
+            Log.d(DEBUG_TAG, "CAPTURE VALIDATION: " + (isValid ? "VALID" : "INVALID"));
+        }
 
         if (!isValid) {
             return; // invalid
         }
 
+        commitMove(fromSquare, targetSquare);
+    }
+
+    private boolean isValidMove(int fromSquare, int toSquare) {
+        return gameActivity.getMoveValidator().isValidMove(
+                Bitboards.row(fromSquare), Bitboards.col(fromSquare),
+                Bitboards.row(toSquare), Bitboards.col(toSquare));
+    }
+
+    // play the engine's move on the board
+    public void makeComputerMove(int move) {
+        if (gameActivity.getPosition().pieceAt(Move.from(move)) == Piece.NONE) {
+            Log.e(DEBUG_TAG, "ERROR: No piece for computer move " + Move.toUci(move));
+            return;
+        }
+
+        clearSelection();
+        commitMove(Move.from(move), Move.to(move));
+    }
+
+    // record, execute and highlight a validated move, then hand the turn over
+    private void commitMove(int fromSquare, int toSquare) {
+        BoardView board = gameActivity.getChessboard();
+        Position position = gameActivity.getPosition();
+
         // clear previous move highlighting
         gameActivity.getAnimationManager().clearLastMoveHighlights();
 
-        // original square colors
-        boolean isFromSquareDark = gameActivity.getBoardManager().isSquareDark(fromCoords);
-        boolean isToSquareDark = gameActivity.getBoardManager().isSquareDark(toCoords);
-
         // piece info
-        int pieceDrawableId = gameActivity.getChessPieceManager().getDrawableResourceId(attackingPiece);
-        int piecePadding = attackingPiece.getPaddingLeft();
-
-        // target piece info
-        ImageView targetPiece = gameActivity.getChessPieceManager().findPieceInSquare(targetSquare);
-        int targetPieceDrawableId = -1;
+        int pieceCode = position.pieceAt(fromSquare);
+        int targetPieceCode = position.pieceAt(toSquare);
         int targetPiecePadding = 0;
+        if (targetPieceCode != Piece.NONE) {
+            targetPiecePadding = board.getPieceInset(toSquare);
 
-        if (targetPiece != null) {
-            targetPieceDrawableId = gameActivity.getChessPieceManager().getDrawableResourceId(targetPiece);
-            targetPiecePadding = targetPiece.getPaddingLeft();
-
-            String targetPieceName = gameActivity.getResources().getResourceEntryName(targetPieceDrawableId);
-            Log.d(DEBUG_TAG, "CAPTURING PIECE: " + targetPieceName);
+            if (DEBUG) {
+                Log.d(DEBUG_TAG, "CAPTURING PIECE: " + Piece.toChar(targetPieceCode));
+            }
         }
 
         // move info
-        MoveInfo moveInfo = new MoveInfo(
-                fromCoords[0], fromCoords[1],
-                toCoords[0], toCoords[1],
-                pieceDrawableId, piecePadding,
-                targetPieceDrawableId, targetPiecePadding,
-                isFromSquareDark, isToSquareDark
+        MoveInfo moveInfo = spareMoves.isEmpty() ? new MoveInfo() : spareMoves.pop();
+        moveInfo.set(
+                Bitboards.row(fromSquare), Bitboards.col(fromSquare),
+                Bitboards.row(toSquare), Bitboards.col(toSquare),
+                pieceCode, board.getPieceInset(fromSquare),
+                targetPieceCode, targetPiecePadding,
+                gameActivity.getBoardManager().isSquareDark(fromSquare),
+                gameActivity.getBoardManager().isSquareDark(toSquare)
         );
 
-        // add to history
+        // add to history (for undo)
         gameActivity.getMoveHistory().push(moveInfo);
 
         // execute
-        movePiece(attackingPiece, fromSquare, targetSquare);
+        movePiece(fromSquare, toSquare);
+        gameActivity.getGameEvents().publish(GameEvents.MOVE_MADE, GameEvents.squaresOf(position.lastMove()));
 
         // highlight
         gameActivity.getAnimationManager().highlightMove(moveInfo);
 
-        // change player turn
-        boolean oldTurn = gameActivity.getWhiteTurn();
-        gameActivity.setWhiteTurn(!oldTurn);
-        Log.d(DEBUG_TAG, "TURN CHANGED: " + (oldTurn ? "White" : "Black") +
-                " -> " + (!oldTurn ? "White" : "Black"));
-    }
-
-    // moving to empty squares
-    public void handleSquareClick(FrameLayout square) {
-        if (gameActivity.isGameOver()) {
-            return;
+        // the position has handed the turn over
+        gameActivity.onTurnChanged();
+        if (DEBUG) {
+            Log.d(DEBUG_TAG, "TURN CHANGED: " + (gameActivity.getWhiteTurn() ? "Black -> White" : "White -> Black"));
         }
 
-        ImageView piece = gameActivity.getChessPieceManager().findPieceInSquare(square);
+        // checkmate or stalemate
+        checkGameEnd();
 
-        if (piece != null) {
-            handlePieceClick(piece, square);
-        } else if (gameActivity.getSelectedPiece() != null) {
-            // continue if piece color matches player turn
-            boolean isSelectedPieceWhite = gameActivity.getChessPieceManager().isPieceWhite(gameActivity.getSelectedPiece());
-            if (isSelectedPieceWhite != gameActivity.getWhiteTurn()) {
-                return; // wrong player turn
-            }
-
-            // get coordinates for move validation
-            int[] fromCoords = gameActivity.getBoardManager().getSquareCoordinates(gameActivity.getSelectedSquare());
-            int[] toCoords = gameActivity.getBoardManager().getSquareCoordinates(square);
-
-            if (fromCoords != null && toCoords != null) {
-                // check if valid move
-                if (!gameActivity.getMoveValidator().isValidMove(
-                        fromCoords[0], fromCoords[1],
-                        toCoords[0], toCoords[1],
-                        gameActivity.getSelectedPiece())) {
-                    return; // invalid
-                }
-
-                // valid - continue
-                // clear highlighting
-                gameActivity.getAnimationManager().clearLastMoveHighlights();
-
-                // original board colors
-                boolean isFromSquareDark = gameActivity.getBoardManager().isSquareDark(fromCoords);
-                boolean isToSquareDark = gameActivity.getBoardManager().isSquareDark(toCoords);
-
-                // get piece info
-                int pieceDrawableId = gameActivity.getChessPieceManager().getDrawableResourceId(gameActivity.getSelectedPiece());
-                int piecePadding = gameActivity.getSelectedPiece().getPaddingLeft();
-
-                // check for captured piece
-                ImageView capturedPiece = gameActivity.getChessPieceManager().findPieceInSquare(square);
-                int capturedPieceDrawableId = -1;
-                int capturedPiecePadding = 0;
-
-                if (capturedPiece != null) {
-                    capturedPieceDrawableId = gameActivity.getChessPieceManager().getDrawableResourceId(capturedPiece);
-                    capturedPiecePadding = capturedPiece.getPaddingLeft();
-                }
-
-                // get move info
-                MoveInfo moveInfo = new MoveInfo(
-                        fromCoords[0], fromCoords[1],
-                        toCoords[0], toCoords[1],
-                        pieceDrawableId, piecePadding,
-                        capturedPieceDrawableId, capturedPiecePadding,
-                        isFromSquareDark, isToSquareDark
-                );
-
-                // add to history (for undo)
-                gameActivity.getMoveHistory().push(moveInfo);
-
-                // move piece
-                movePiece(gameActivity.getSelectedPiece(), gameActivity.getSelectedSquare(), square);
-
-                // highlight move
-                gameActivity.getAnimationManager().highlightMove(moveInfo);
-
-                // change player turn
-                gameActivity.setWhiteTurn(!gameActivity.getWhiteTurn());
-            }
-        }
+        // computer reply, if it is its turn
+        gameActivity.getComputerPlayerManager().onTurnChanged();
     }
 
-    public void movePiece(ImageView piece, FrameLayout fromSquare, FrameLayout toSquare) {
-        // get coords
-        int[] fromCoords = gameActivity.getBoardManager().getSquareCoordinates(fromSquare);
-        int[] toCoords = gameActivity.getBoardManager().getSquareCoordinates(toSquare);
-
-        // special moves
-        if (fromCoords != null && toCoords != null) {
-            Integer pieceId = (Integer) piece.getTag();
-            if (pieceId != null) {
-                String pieceName = gameActivity.getResources().getResourceEntryName(pieceId);
-                boolean isPawn = pieceName.endsWith("_pawn");
-                boolean isWhitePawn = pieceName.startsWith("w_") && isPawn;
-
-                // if castle
-                if (pieceName.endsWith("_king") &&
-                        fromCoords[0] == toCoords[0] &&
-                        fromCoords[1] == 4 &&
-                        (toCoords[1] == 6 || toCoords[1] == 2)) {
-
-                    boolean isKingside = toCoords[1] == 6;
-                    int rookFromCol = isKingside ? 7 : 0;
-                    int rookToCol = isKingside ? 5 : 3;
-
-                    // get rook
-                    FrameLayout rookFromSquare = gameActivity.getBoardManager().getSquareAt(fromCoords[0], rookFromCol);
-                    FrameLayout rookToSquare = gameActivity.getBoardManager().getSquareAt(fromCoords[0], rookToCol);
-
-                    ImageView rookPiece = gameActivity.getChessPieceManager().findPieceInSquare(rookFromSquare);
-
-                    if (rookPiece != null && rookToSquare != null) {
-                        // move rook
-                        rookFromSquare.removeView(rookPiece);
-
-                        rookPiece.setLayoutParams(new FrameLayout.LayoutParams(
-                                FrameLayout.LayoutParams.MATCH_PARENT,
-                                FrameLayout.LayoutParams.MATCH_PARENT
-                        ));
-
-                        rookToSquare.addView(rookPiece, Math.min(1, rookToSquare.getChildCount()));
-
-                        // Mark this move as a castling in the move history
-                        if (!gameActivity.getMoveHistory().isEmpty()) {
-                            MoveInfo lastMove = gameActivity.getMoveHistory().peek();
-                            lastMove.wasCastling = true;
-                            lastMove.rookFromCol = rookFromCol;
-                            lastMove.rookToCol = rookToCol;
-                        }
-                    }
-                }
-
-                // pawn promotion - unrelated to en passant
-                if (isPawn) {
-                    // is pawn on final rank
-                    boolean reachedFinalRank = (isWhitePawn && toCoords[0] == 0) || (!isWhitePawn && toCoords[0] == 7);
-
-                    if (reachedFinalRank) {
-                        // store pawn Id - for undo
-                        Integer originalPawnId = pieceId;
-
-                        ImageView capturedPiece = gameActivity.getChessPieceManager().findPieceInSquare(toSquare);
-                        boolean isKingCapture = false;
-                        String capturedColor = null;
-
-                        // bug fix - checking for king capture
-                        if (capturedPiece != null) {
-                            Integer capturedId = (Integer) capturedPiece.getTag();
-                            if (capturedId != null) {
-                                String capturedName = gameActivity.getResources().getResourceEntryName(capturedId);
-                                isKingCapture = capturedName.endsWith("_king");
-                                capturedColor = capturedName.startsWith("w_") ? "White" : "Black";
-                            }
-                        }
-
-                        // remove pawn
-                        fromSquare.removeView(piece);
-
-                        // create queen
-                        String colorPrefix = isWhitePawn ? "w_" : "b_";
-                        int queenDrawableId = gameActivity.getResources().getIdentifier(
-                                colorPrefix + "queen", "drawable", gameActivity.getPackageName());
-
-                        // place queen
-                        gameActivity.getChessPieceManager().placePiece(toSquare, queenDrawableId, 4);
-
-                        // add to move history as promotion
-                        if (!gameActivity.getMoveHistory().isEmpty()) {
-                            MoveInfo lastMove = gameActivity.getMoveHistory().peek();
-                            lastMove.wasPromotion = true;
-                            lastMove.originalPieceId = originalPawnId;
-                        }
-
-                        // end game if king capture
-                        if (isKingCapture && capturedColor != null) {
-                            String winner = isWhitePawn ? "White" : "Black";
-                            gameActivity.setGameWinner(winner);
-                        }
-
-                        return;
-                    }
-                }
-
-                // check en passant
-                if (isPawn &&
-                        Math.abs(fromCoords[1] - toCoords[1]) == 1 && // move diagonal
-                        Math.abs(fromCoords[0] - toCoords[0]) == 1 && // move one row
-                        gameActivity.getChessPieceManager().findPieceInSquare(toSquare) == null) { // empty target
+    private void movePiece(int fromSquare, int toSquare) {
+        BoardView board = gameActivity.getChessboard();
+        Position position = gameActivity.getPosition();
+        MoveInfo lastMove = gameActivity.getMoveHistory().peek();
 
-                    // remove captured pawn
-                    FrameLayout capturedPawnSquare = gameActivity.getBoardManager().getSquareAt(fromCoords[0], toCoords[1]);
-                    ImageView capturedPawn = gameActivity.getChessPieceManager().findPieceInSquare(capturedPawnSquare);
+        // update position - the board draws from it
+        int move = position.createMove(fromSquare, toSquare);
 
-                    if (capturedPawn != null) {
-                        capturedPawnSquare.removeView(capturedPawn);
-                    }
-                }
-            }
+        // en passant takes the pawn beside the target square - keep it for undo
+        if (Move.isEnPassant(move)) {
+            int capturedSquare = Bitboards.square(lastMove.fromRow, lastMove.toCol);
+            lastMove.wasEnPassant = true;
+            lastMove.capturedPiece = position.pieceAt(capturedSquare);
+            lastMove.capturedPiecePadding = board.getPieceInset(capturedSquare);
         }
 
-        ImageView capturedPiece = null;
-        boolean kingCaptured = false;
-        String capturedPieceName = null;
-
-        for (int i = 0; i < toSquare.getChildCount(); i++) {
-            View child = toSquare.getChildAt(i);
-            if (child instanceof ImageView) {
-                capturedPiece = (ImageView) child;
+        position.makeMove(move);
 
-                // check if king capture
-                Integer capturedPieceId = (Integer) capturedPiece.getTag();
-                if (capturedPieceId != null) {
-                    capturedPieceName = gameActivity.getResources().getResourceEntryName(capturedPieceId);
-                    kingCaptured = capturedPieceName != null && capturedPieceName.endsWith("_king");
+        // store resulting key
+        lastMove.positionKey = position.key();
 
-                    if (kingCaptured) {
-                        System.out.println("KING CAPTURED: " + capturedPieceName);
-                    }
-                }
-
-                break;
-            }
-        }
-
-        fromSquare.removeView(piece);
-
-        if (gameActivity.getSelectionBorder().getParent() != null) {
-            ((ViewGroup)gameActivity.getSelectionBorder().getParent()).removeView(gameActivity.getSelectionBorder());
+        // if castle - the rook keeps its padding
+        if (Move.isCastle(move)) {
+            boolean isKingside = lastMove.toCol == 6;
+            lastMove.wasCastling = true;
+            lastMove.rookFromCol = isKingside ? 7 : 0;
+            lastMove.rookToCol = isKingside ? 5 : 3;
+            board.setPieceInset(Bitboards.square(lastMove.fromRow, lastMove.rookToCol),
+                    board.getPieceInset(Bitboards.square(lastMove.fromRow, lastMove.rookFromCol)));
         }
 
-        // remove any existing piece in target square (capture)
-        for (int i = 0; i < toSquare.getChildCount(); i++) {
-            View child = toSquare.getChildAt(i);
-            if (child instanceof ImageView) {
-                capturedPiece = (ImageView) child;
-                toSquare.removeView(child);
-                System.out.println("CAPTURE: " + gameActivity.getResources().getResourceEntryName((Integer)capturedPiece.getTag()));
-                break;
-            }
+        // pawn promotion - the pawn stays in lastMove.piece for undo
+        if (Move.isPromotion(move)) {
+            lastMove.wasPromotion = true;
+            board.setPieceInset(toSquare, PiecePadding.PROMOTED);
+        } else {
+            board.setPieceInset(toSquare, PiecePadding.MOVED);
         }
 
-        // add piece above background
-        int insertIndex = 1; // background at index 0
-        toSquare.addView(piece, Math.min(insertIndex, toSquare.getChildCount()));
-
-        piece.setLayoutParams(new FrameLayout.LayoutParams(
-                FrameLayout.LayoutParams.MATCH_PARENT,
-                FrameLayout.LayoutParams.MATCH_PARENT
-        ));
-        piece.setPadding(8, 8, 8, 8);
-
-        gameActivity.setSelectedPiece(null);
-        gameActivity.setSelectedSquare(null);
-
-        if (gameActivity.getBorderAnimator().isRunning()) {
-            gameActivity.getBorderAnimator().cancel();
-        }
+        clearSelection();
+    }
 
-        // if king capture
-        if (kingCaptured) {
-            // show winner
-            if (capturedPieceName.startsWith("w_")) {
-                gameActivity.setGameWinner("Black");
-            } else {
-                gameActivity.setGameWinner("White");
-            }
+    // end the game when the side to move has no legal moves
+    public void checkGameEnd() {
+        MoveGenerator.GameStatus status = gameActivity.getMoveValidator().getGameStatus();
+        if (status == MoveGenerator.GameStatus.CHECKMATE) {
+            // side to move is mated
+            gameActivity.setGameWinner(gameActivity.getPosition().sideToMove() == Piece.WHITE ? "Black" : "White");
+        } else if (status == MoveGenerator.GameStatus.STALEMATE) {
+            gameActivity.setGameDrawn();
+        } else {
+            return;
         }
+        gameActivity.getGameEvents().publish(GameEvents.GAME_ENDED, 0L);
     }
 
-    public void selectPiece(ImageView piece, FrameLayout square) {
-        gameActivity.setSelectedPiece(piece);
+    // the targets come from the position's cached move list - selecting again costs no move generation
+    public void selectPiece(int square) {
+        long targets = gameActivity.getMoveValidator().legalTargets(square);
         gameActivity.setSelectedSquare(square);
-
-        if (gameActivity.getSelectionBorder().getParent() != null) {
-            ((ViewGroup)gameActivity.getSelectionBorder().getParent()).removeView(gameActivity.getSelectionBorder());
-        }
-
-        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
-                FrameLayout.LayoutParams.MATCH_PARENT,
-                FrameLayout.LayoutParams.MATCH_PARENT
-        );
-
-        square.addView(gameActivity.getSelectionBorder(), params);
-
-        if (!gameActivity.getBorderAnimator().isStarted()) {
-            gameActivity.getBorderAnimator().start();
-        }
+        gameActivity.getChessboard().setSelectedSquare(square);
+        gameActivity.getChessboard().setTargetSquares(targets);
     }
 
     public void clearSelection() {
-        if (gameActivity.getSelectedSquare() != null) {
-            gameActivity.getSelectedSquare().removeView(gameActivity.getSelectionBorder());
-            gameActivity.getBorderAnimator().cancel();
-            gameActivity.setSelectedPiece(null);
-            gameActivity.setSelectedSquare(null);
+        if (gameActivity.getSelectedSquare() != BoardView.NO_SQUARE) {
+            gameActivity.getChessboard().setSelectedSquare(BoardView.NO_SQUARE);
+            gameActivity.getChessboard().setTargetSquares(0);
+            gameActivity.setSelectedSquare(BoardView.NO_SQUARE);
         }
     }
 
@@ -457,100 +285,26 @@ public class MoveManager {
         // clear previous move highlights
         gameActivity.getAnimationManager().clearLastMoveHighlights();
 
-        // remove last move from history
+        // remove last move from history - the position puts every piece back
         MoveInfo lastMove = gameActivity.getMoveHistory().pop();
+        long squares = GameEvents.squaresOf(gameActivity.getPosition().lastMove());
+        gameActivity.getPosition().unmakeMove();
 
-        // get involved squares
-        FrameLayout fromSquare = gameActivity.getBoardManager().getSquareAt(lastMove.fromRow, lastMove.fromCol);
-        FrameLayout toSquare = gameActivity.getBoardManager().getSquareAt(lastMove.toRow, lastMove.toCol);
-
-        if (fromSquare == null || toSquare == null) {
-            return; // should never trigger
-        }
-
-        // get moved piece
-        ImageView movedPiece = gameActivity.getChessPieceManager().findPieceInSquare(toSquare);
-        if (movedPiece == null) {
-            return;
-        }
-
-        // remove piece from current square
-        toSquare.removeView(movedPiece);
-
-        // castle undo
+        // restore piece padding
+        BoardView board = gameActivity.getChessboard();
         if (lastMove.wasCastling) {
-            // get rook current square
-            FrameLayout rookCurrentSquare = gameActivity.getBoardManager().getSquareAt(lastMove.fromRow, lastMove.rookToCol);
-
-            // get rook original square
-            FrameLayout rookOriginalSquare = gameActivity.getBoardManager().getSquareAt(lastMove.fromRow, lastMove.rookFromCol);
-
-            // find rook
-            ImageView rookPiece = gameActivity.getChessPieceManager().findPieceInSquare(rookCurrentSquare);
-
-            if (rookPiece != null) {
-                // remove rook from current pos
-                rookCurrentSquare.removeView(rookPiece);
-
-                // add rook to original pos
-                rookOriginalSquare.addView(rookPiece, Math.min(1, rookOriginalSquare.getChildCount()));
-            }
-        }
-
-        // promotion undo
-        if (lastMove.wasPromotion && lastMove.originalPieceId != null) {
-            // create new pawn
-            ImageView pawnPiece = new ImageView(gameActivity);
-            pawnPiece.setImageResource(lastMove.originalPieceId);
-            pawnPiece.setTag(lastMove.originalPieceId);
-
-            // set layout params for pawn
-            pawnPiece.setLayoutParams(new FrameLayout.LayoutParams(
-                    FrameLayout.LayoutParams.MATCH_PARENT,
-                    FrameLayout.LayoutParams.MATCH_PARENT
-            ));
-
-            pawnPiece.setPadding(8, 8, 8, 8);
-
-            // add listener for restored pawn
-            pawnPiece.setOnClickListener(v -> handlePieceClick(pawnPiece, fromSquare));
-
-            // add pawn back
-            int insertIndex = 1;
-            fromSquare.addView(pawnPiece, Math.min(insertIndex, fromSquare.getChildCount()));
-        } else {
-            // move piece back to original square
-            int insertIndex = 1;
-            fromSquare.addView(movedPiece, Math.min(insertIndex, fromSquare.getChildCount()));
-
-            // reset layout parameters
-            movedPiece.setLayoutParams(new FrameLayout.LayoutParams(
-                    FrameLayout.LayoutParams.MATCH_PARENT,
-                    FrameLayout.LayoutParams.MATCH_PARENT
-            ));
-            movedPiece.setPadding(
-                    lastMove.piecePadding,
-                    lastMove.piecePadding,
-                    lastMove.piecePadding,
-                    lastMove.piecePadding
-            );
+            board.setPieceInset(Bitboards.square(lastMove.fromRow, lastMove.rookFromCol),
+                    board.getPieceInset(Bitboards.square(lastMove.fromRow, lastMove.rookToCol)));
         }
-
-        // if a piece was captured, restore it
-        if (lastMove.capturedPieceDrawableId != -1) {
-            // create new piece with captured piece info
-            ImageView capturedPiece = getImageView(lastMove, toSquare);
-
-            // add captured piece back to square
-            int insertIndex = 1;
-            toSquare.addView(capturedPiece, Math.min(insertIndex, toSquare.getChildCount()));
+        board.setPieceInset(Bitboards.square(lastMove.fromRow, lastMove.fromCol), lastMove.piecePadding);
+        if (lastMove.capturedPiece != Piece.NONE) {
+            // en passant captured pawn sits beside the target square
+            int capturedSquare = lastMove.wasEnPassant
+                    ? Bitboards.square(lastMove.fromRow, lastMove.toCol)
+                    : Bitboards.square(lastMove.toRow, lastMove.toCol);
+            board.setPieceInset(capturedSquare, lastMove.capturedPiecePadding);
         }
-
-        // restore original square colors
-        gameActivity.getAnimationManager().setStaticSquareColor(fromSquare,
-                lastMove.isFromSquareDark ? GameActivity.DARK_SQUARE_COLOR : GameActivity.LIGHT_SQUARE_COLOR);
-        gameActivity.getAnimationManager().setStaticSquareColor(toSquare,
-                lastMove.isToSquareDark ? GameActivity.DARK_SQUARE_COLOR : GameActivity.LIGHT_SQUARE_COLOR);
+        gameActivity.getGameEvents().publish(GameEvents.MOVE_UNDONE, squares);
 
         // highlight previous move, if exists
         if (!gameActivity.getMoveHistory().isEmpty()) {
@@ -558,34 +312,18 @@ public class MoveManager {
             gameActivity.getAnimationManager().highlightMove(previousMove);
         }
 
-        // toggle player turn
-        boolean currentTurn = gameActivity.getWhiteTurn();
-        gameActivity.setWhiteTurn(!currentTurn);
-
-        System.out.println("UNDO: Turn changed from " + (currentTurn ? "White" : "Black") +
-                " to " + (!currentTurn ? "White" : "Black"));
+        // nothing holds the record any more
+        if (spareMoves.size() < MAX_SPARE_MOVES) {
+            spareMoves.push(lastMove);
+        }
 
-        clearSelection();
-    }
+        // unmakeMove gave the turn back
+        gameActivity.onTurnChanged();
 
-    @NonNull
-    private ImageView getImageView(MoveInfo lastMove, FrameLayout toSquare) {
-        ImageView capturedPiece = new ImageView(gameActivity);
-        capturedPiece.setImageResource(lastMove.capturedPieceDrawableId);
-        capturedPiece.setTag(lastMove.capturedPieceDrawableId);
-        capturedPiece.setLayoutParams(new FrameLayout.LayoutParams(
-                FrameLayout.LayoutParams.MATCH_PARENT,
-                FrameLayout.LayoutParams.MATCH_PARENT
-        ));
-        capturedPiece.setPadding(
-                lastMove.capturedPiecePadding,
-                lastMove.capturedPiecePadding,
-                lastMove.capturedPiecePadding,
-                lastMove.capturedPiecePadding
-        );
+        if (DEBUG) {
+            Log.d(DEBUG_TAG, "UNDO: Turn changed " + (gameActivity.getWhiteTurn() ? "Black -> White" : "White -> Black"));
+        }
 
-        // click listener
-        capturedPiece.setOnClickListener(v -> handlePieceClick(capturedPiece, toSquare));
-        return capturedPiece;
+        clearSelection();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.chess.GameActivityManagers;
+
+import com.chess.Engine.Piece;
+
+// piece padding on the board, px - live play, resumed games and the start layout all read it from here
+// pawns sit smaller than the other pieces until they move, a promoted pawn takes the piece size
+final class PiecePadding {
+    static final int PAWN = 8;
+    static final int PIECE = 4;
+    static final int MOVED = 8;
+    static final int PROMOTED = PIECE;
+
+    private PiecePadding() {}
+
+    // a piece that has not moved yet - 0 for an empty square
+    static int unmoved(int piece) {
+        return piece == Piece.NONE ? 0 : Piece.type(piece) == Piece.PAWN ? PAWN : PIECE;
+    }
+}
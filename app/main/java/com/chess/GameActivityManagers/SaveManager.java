@@ -0,0 +1,263 @@
+package com.chess.GameActivityManagers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.chess.Engine.Position;
+import com.chess.GameViewModel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// writes the game off the main thread - a move or undo only queues its change, the journal gets it in the background
+// a burst of changes is written by one task, and only a flush copies the whole game
+// owned by the game view model - one writer for the files however often the activity is recreated
+public class SaveManager {
+    private static final String TAG = "SaveManager";
+
+    // queued change: a move to append, or with this bit the number of moves an undo kept
+    private static final int TRUNCATE = 1 << 16;
+
+    private final GameViewModel game;
+    private final GameJournal journal;
+    private final File metadataFile;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SaveManager");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // changes not yet written, taken by the next write - guarded by this
+    // the two change buffers swap between the main thread and the save thread
+    private int[] pendingChanges = new int[16];
+    private int pendingChangeCount;
+    private int[] pendingSnapshot; // the whole game, from a flush - null when none
+    private boolean pendingVsComputer;
+    private boolean pending;
+    private int uncheckedPlies; // of a game migrated from json - snapshots keep the flag until those moves are undone
+
+    // the game as the changes have left it, whether or not the files got them - save thread only
+    private int[] writingChanges = new int[16];
+    private int[] savedMoves = new int[64];
+    private int savedCount;
+    private boolean savedVsComputer;
+
+    // no saving until the board holds the whole game - a resumed game is still being replayed
+    private boolean started = false;
+
+    public SaveManager(Context context, GameViewModel game) {
+        this.game = game;
+        this.journal = GameStateManager.createJournal(context);
+        this.metadataFile = GameStateManager.metadataFile(context);
+    }
+
+    // journal every move and undo - each new activity hands over its events
+    public void listenTo(GameEvents gameEvents) {
+        gameEvents.subscribe((type, squares) -> {
+            if (type == GameEvents.MOVE_MADE) {
+                requestSave(game.getPosition().lastMove());
+            } else if (type == GameEvents.MOVE_UNDONE) {
+                requestSave(TRUNCATE | game.getPosition().ply());
+            }
+        });
+    }
+
+    // main thread - before start, for a resumed game that opens with moves the old json saves let through
+    public synchronized void setUncheckedPlies(int uncheckedPlies) {
+        this.uncheckedPlies = uncheckedPlies;
+    }
+
+    // main thread - the board is live from here on
+    // changes are queued against the game as it stands - a resumed game is flushed straight after
+    public void start() {
+        started = true;
+    }
+
+    // main thread - a fresh snapshot of the latest state, for pause and leaving the game
+    // the future completes once it is on disk
+    public Future<?> flush() {
+        if (started) {
+            Position position = game.getPosition();
+            int[] moves = new int[position.ply()];
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] = position.moveAt(i);
+            }
+
+            synchronized (this) {
+                // the snapshot holds every queued change
+                pendingSnapshot = moves;
+                pendingChangeCount = 0;
+                pendingVsComputer = game.isVsComputer();
+                uncheckedPlies = Math.min(uncheckedPlies, moves.length);
+                pending = true;
+            }
+        }
+
+        // an earlier task may already have written this state - this one then finds nothing pending
+        return executor.submit(this::writePending);
+    }
+
+    // main thread - journals one move or undo
+    private void requestSave(int change) {
+        if (!started) {
+            return;
+        }
+
+        synchronized (this) {
+            if (pendingChangeCount == pendingChanges.length) {
+                pendingChanges = Arrays.copyOf(pendingChanges, pendingChangeCount * 2);
+            }
+            pendingChanges[pendingChangeCount++] = change;
+            pendingVsComputer = game.isVsComputer();
+            if ((change & TRUNCATE) != 0) {
+                uncheckedPlies = Math.min(uncheckedPlies, change & ~TRUNCATE);
+            }
+            if (pending) {
+                return; // the queued task takes this change too
+            }
+            pending = true;
+        }
+        executor.execute(this::writePending);
+    }
+
+    private void writePending() {
+        int[] snapshot;
+        int[] changes;
+        int changeCount;
+        boolean vsComputer;
+        int unchecked;
+        synchronized (this) {
+            if (!pending) {
+                return;
+            }
+            snapshot = pendingSnapshot;
+            changes = pendingChanges;
+            changeCount = pendingChangeCount;
+            vsComputer = pendingVsComputer;
+            unchecked = uncheckedPlies;
+
+            pendingChanges = writingChanges;
+            writingChanges = changes;
+            pendingChangeCount = 0;
+            pendingSnapshot = null;
+            pending = false;
+        }
+
+        long start = System.nanoTime();
+        boolean compact = snapshot != null || !journal.isOpen() || vsComputer != savedVsComputer;
+        try {
+            if (snapshot != null) {
+                // already a snapshot with nothing on top
+                if (changeCount == 0 && journal.isOpen() && journal.records() == 0
+                        && vsComputer == savedVsComputer && isSaved(snapshot)) {
+                    return;
+                }
+                savedMoves = snapshot;
+                savedCount = snapshot.length;
+            }
+
+            // the journal takes the changes as they are - a snapshot only needs them in savedMoves
+            applyChanges(changes, changeCount, compact);
+            if (!journal.isOpen() && savedCount == 0) {
+                // nothing played yet - keep whatever save is there
+                return;
+            }
+            savedVsComputer = vsComputer;
+
+            if (compact || journal.records() >= GameJournal.COMPACT_INTERVAL) {
+                journal.compact(savedMoves, savedCount, vsComputer, unchecked);
+            }
+
+            // games always start from the start position, so the ply gives the side to move
+            writeMetadata(GameStateSerializer.toMetadata(savedCount, savedCount % 2 == 0,
+                    System.currentTimeMillis()));
+        } catch (IOException e) {
+            Log.e(TAG, "Game save failed", e);
+            // savedMoves has the changes the journal may have missed - the next write snapshots it
+            closeJournal();
+            return;
+        }
+
+        Log.d(TAG, "Game saved: " + savedCount + " moves, " + (System.nanoTime() - start) / 1000 + " us");
+    }
+
+    // plays the changes onto savedMoves, and onto the journal unless a snapshot replaces it
+    // savedMoves takes every change even when a write fails
+    private void applyChanges(int[] changes, int count, boolean compact) throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < count; i++) {
+            int change = changes[i];
+            if ((change & TRUNCATE) != 0) {
+                int kept = change & ~TRUNCATE;
+                if (kept >= savedCount) {
+                    continue;
+                }
+                savedCount = kept;
+                if (!compact && failure == null) {
+                    try {
+                        journal.appendTruncate(kept);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+            } else {
+                if (savedCount == savedMoves.length) {
+                    savedMoves = Arrays.copyOf(savedMoves, Math.max(64, savedCount * 2));
+                }
+                savedMoves[savedCount++] = change;
+                if (!compact && failure == null) {
+                    try {
+                        journal.appendMove(change);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private boolean isSaved(int[] moves) {
+        if (moves.length != savedCount) {
+            return false;
+        }
+        for (int i = 0; i < savedCount; i++) {
+            if (moves[i] != savedMoves[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void closeJournal() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Journal close failed", e);
+        }
+    }
+
+    // after the game it describes is written - overwritten in place, a torn record fails its crc
+    private void writeMetadata(ByteBuffer metadata) throws IOException {
+        try (FileChannel channel = new FileOutputStream(metadataFile).getChannel()) {
+            while (metadata.hasRemaining()) {
+                channel.write(metadata);
+            }
+        }
+    }
+
+    // queued writes still finish
+    public void shutdown() {
+        executor.execute(this::closeJournal);
+        executor.shutdown();
+    }
+}
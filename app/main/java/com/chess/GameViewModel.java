@@ -0,0 +1,103 @@
+package com.chess;
+
+import android.app.Application;
+
+import androidx.lifecycle.AndroidViewModel;
+
+import com.chess.Engine.Piece;
+import com.chess.Engine.Position;
+import com.chess.GameActivityManagers.ComputerPlayerManager;
+import com.chess.GameActivityManagers.MoveInfo;
+import com.chess.GameActivityManagers.SaveManager;
+
+import java.util.Stack;
+
+// the game in progress, kept across rotation and theme changes - a recreated activity draws it as it stands
+// no views, no activity - the engine and the save thread live here too, so a rotation neither drops a search nor starts a second writer
+public class GameViewModel extends AndroidViewModel {
+    // board state - the board view draws it
+    private final Position position = new Position();
+    private final Stack<MoveInfo> moveHistory = new Stack<>();
+    private final int[] pieceInsets = new int[64]; // piece padding by square, px
+
+    private boolean started = false;
+    private boolean vsComputer = false; // computer plays black
+    private boolean gameOver = false;
+    private String gameWinner = null;
+
+    // background work - stopped when the game is left, not when the activity is recreated
+    private final ComputerPlayerManager computerPlayerManager;
+    private final SaveManager saveManager;
+
+    public GameViewModel(Application application) {
+        super(application);
+        computerPlayerManager = new ComputerPlayerManager(this);
+        saveManager = new SaveManager(application, this);
+    }
+
+    @Override
+    protected void onCleared() {
+        computerPlayerManager.shutdown();
+        saveManager.shutdown();
+    }
+
+    public ComputerPlayerManager getComputerPlayerManager() {
+        return computerPlayerManager;
+    }
+
+    public SaveManager getSaveManager() {
+        return saveManager;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public Stack<MoveInfo> getMoveHistory() {
+        return moveHistory;
+    }
+
+    public int[] getPieceInsets() {
+        return pieceInsets;
+    }
+
+    // false until the first activity has set the game up
+    public boolean isStarted() {
+        return started;
+    }
+
+    public void setStarted() {
+        this.started = true;
+    }
+
+    // the position's side to move - no separate copy to keep in step
+    public boolean isWhiteTurn() {
+        return position.sideToMove() == Piece.WHITE;
+    }
+
+    public boolean isVsComputer() {
+        return vsComputer;
+    }
+
+    public void setVsComputer(boolean vsComputer) {
+        this.vsComputer = vsComputer;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public String getGameWinner() {
+        return gameWinner;
+    }
+
+    // null winner - drawn
+    public void setGameOver(String winner) {
+        this.gameWinner = winner;
+        this.gameOver = true;
+    }
+
+    public boolean isComputerTurn() {
+        return vsComputer && !isWhiteTurn() && !gameOver;
+    }
+}
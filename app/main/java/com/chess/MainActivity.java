@@ -32,6 +32,13 @@ public class MainActivity extends AppCompatActivity {
             startActivity(intent);
         });
 
+        Button computerButton = findViewById(R.id.button_computer);
+        computerButton.setOnClickListener(v -> {
+            Intent intent = new Intent(MainActivity.this, GameActivity.class);
+            intent.putExtra("vsComputer", true);
+            startActivity(intent);
+        });
+
         Button resumeButton = findViewById(R.id.button_resume);
         resumeButton.setOnClickListener(v -> {
             if (GameStateManager.hasSavedGame(MainActivity.this)) {
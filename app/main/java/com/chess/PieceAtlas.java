@@ -0,0 +1,93 @@
+package com.chess;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import com.chess.Engine.Piece;
+
+// the twelve piece drawables rasterized once per sprite size - drawing a piece is then a bitmap blit
+// one atlas per size, white pieces on the top row and black below, in piece type order
+// the view clears it on configuration change, so density and theme never go stale
+class PieceAtlas {
+    // a few sizes at most - pieces use two paddings, and a resize brings new ones
+    private static final int MAX_ATLASES = 4;
+
+    private final Drawable[] drawables; // by piece code
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect source = new Rect();
+    private final Rect target = new Rect();
+
+    // least recently used first
+    private final int[] sizes = new int[MAX_ATLASES];
+    private final Bitmap[] atlases = new Bitmap[MAX_ATLASES];
+    private int count = 0;
+
+    PieceAtlas(Drawable[] drawables) {
+        this.drawables = drawables;
+    }
+
+    // piece drawn into the size x size square at left, top
+    void draw(Canvas canvas, int piece, int left, int top, int size) {
+        if (size <= 0) {
+            return;
+        }
+        Bitmap atlas = atlas(size);
+        int x = Piece.type(piece) * size;
+        int y = Piece.color(piece) * size;
+        source.set(x, y, x + size, y + size);
+        target.set(left, top, left + size, top + size);
+        canvas.drawBitmap(atlas, source, target, paint);
+    }
+
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            atlases[i] = null;
+        }
+        count = 0;
+    }
+
+    private Bitmap atlas(int size) {
+        for (int i = 0; i < count; i++) {
+            if (sizes[i] == size) {
+                Bitmap atlas = atlases[i];
+                moveToEnd(i, size, atlas);
+                return atlas;
+            }
+        }
+
+        // evict the least recently used - not recycled, a display list may still draw it
+        if (count == MAX_ATLASES) {
+            System.arraycopy(sizes, 1, sizes, 0, count - 1);
+            System.arraycopy(atlases, 1, atlases, 0, count - 1);
+            count--;
+        }
+
+        Bitmap atlas = rasterize(size);
+        sizes[count] = size;
+        atlases[count] = atlas;
+        count++;
+        return atlas;
+    }
+
+    private void moveToEnd(int index, int size, Bitmap atlas) {
+        System.arraycopy(sizes, index + 1, sizes, index, count - index - 1);
+        System.arraycopy(atlases, index + 1, atlases, index, count - index - 1);
+        sizes[count - 1] = size;
+        atlases[count - 1] = atlas;
+    }
+
+    private Bitmap rasterize(int size) {
+        Bitmap atlas = Bitmap.createBitmap(6 * size, 2 * size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(atlas);
+        for (int piece = 0; piece < drawables.length; piece++) {
+            int x = Piece.type(piece) * size;
+            int y = Piece.color(piece) * size;
+            drawables[piece].setBounds(x, y, x + size, y + size);
+            drawables[piece].draw(canvas);
+        }
+        return atlas;
+    }
+}
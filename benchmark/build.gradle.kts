@@ -0,0 +1,57 @@
+// JVM-only JMH benchmarks for the engine and game state code shared with :app
+// run: ./gradlew :benchmark:jmh - results in benchmark/build/results/jmh/results.json
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// compile the app's plain-java sources directly - nothing here may depend on android
+// src/main/java holds the command-line harnesses, kept out of the apk - src/test/java the unit tests for the shared code
+sourceSets {
+    main {
+        java {
+            srcDir("../app/main/java")
+            include("com/chess/Engine/**")
+            include("com/chess/GameActivityManagers/MoveInfo.java")
+            include("com/chess/GameActivityManagers/GameStateSerializer.java")
+            include("com/chess/GameActivityManagers/GameJournal.java")
+            include("com/chess/GameActivityManagers/MoveValidator.java")
+            include("com/chess/GameActivityManagers/PiecePadding.java")
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.gson)
+    testImplementation(libs.junit)
+}
+
+// the harnesses take their arguments through --args
+tasks.register<JavaExec>("allocationCheck") {
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("com.chess.Engine.AllocationCheck")
+}
+
+tasks.register<JavaExec>("perft") {
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("com.chess.Engine.Perft")
+}
+
+tasks.register<JavaExec>("searchBenchmark") {
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("com.chess.Engine.SearchBenchmark")
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
@@ -0,0 +1,104 @@
+package com.chess.benchmark;
+
+import com.chess.Engine.Bitboards;
+import com.chess.Engine.Move;
+import com.chess.Engine.MoveGenerator;
+import com.chess.Engine.MoveList;
+import com.chess.Engine.Piece;
+import com.chess.Engine.Position;
+import com.chess.GameActivityManagers.MoveInfo;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+// fixed inputs shared by the benchmarks
+final class BenchmarkPositions {
+    static final String START = Position.START_FEN;
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    static final String MIDDLEGAME = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+    static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    private BenchmarkPositions() {}
+
+    static String fen(String name) {
+        switch (name) {
+            case "start":
+                return START;
+            case "kiwipete":
+                return KIWIPETE;
+            case "middlegame":
+                return MIDDLEGAME;
+            case "endgame":
+                return ENDGAME;
+            default:
+                throw new IllegalArgumentException("unknown position: " + name);
+        }
+    }
+
+    static Position position(String fen) {
+        Position position = new Position();
+        position.setFen(fen);
+        return position;
+    }
+
+    // a legal game from the start position, recorded the way MoveManager records moves
+    // never ends early - moves that mate or stalemate are skipped, and only queen promotions are played like on the board
+    static ArrayList<MoveInfo> randomGame(int plies, long seed) {
+        Random random = new Random(seed);
+        Position position = position(START);
+        MoveList moves = new MoveList();
+        MoveList replies = new MoveList();
+        ArrayList<MoveInfo> history = new ArrayList<>(plies);
+
+        while (history.size() < plies) {
+            MoveGenerator.generateLegalMoves(position, moves);
+            int move = Move.NONE;
+            int start = random.nextInt(moves.size());
+            for (int i = 0; i < moves.size() && move == Move.NONE; i++) {
+                int candidate = moves.get((start + i) % moves.size());
+                if (Move.isPromotion(candidate) && Move.promotionType(candidate) != Piece.QUEEN) {
+                    continue;
+                }
+                position.makeMove(candidate);
+                MoveGenerator.generateLegalMoves(position, replies);
+                if (!replies.isEmpty()) {
+                    move = candidate;
+                }
+                position.unmakeMove();
+            }
+            if (move == Move.NONE) {
+                throw new IllegalStateException("no move keeps the game going after " + history.size() + " plies");
+            }
+
+            history.add(record(position, move));
+            position.makeMove(move);
+            history.get(history.size() - 1).positionKey = position.key();
+        }
+        return history;
+    }
+
+    private static MoveInfo record(Position position, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = position.pieceAt(from);
+        int captured = Move.isEnPassant(move) ? Piece.make(Piece.color(piece) ^ 1, Piece.PAWN) : position.pieceAt(to);
+
+        MoveInfo info = new MoveInfo(
+                Bitboards.row(from), Bitboards.col(from),
+                Bitboards.row(to), Bitboards.col(to),
+                piece, 8,
+                captured, captured == Piece.NONE ? 0 : 8,
+                (Bitboards.row(from) + Bitboards.col(from)) % 2 == 1,
+                (Bitboards.row(to) + Bitboards.col(to)) % 2 == 1);
+        if (Move.isPromotion(move)) {
+            info.wasPromotion = true;
+        }
+        if (Move.isCastle(move)) {
+            info.wasCastling = true;
+            info.rookFromCol = Bitboards.col(to) == 6 ? 7 : 0;
+            info.rookToCol = Bitboards.col(to) == 6 ? 5 : 3;
+        }
+        info.wasEnPassant = Move.isEnPassant(move);
+        return info;
+    }
+}
@@ -0,0 +1,94 @@
+package com.chess.benchmark;
+
+import com.chess.Engine.Bitboards;
+import com.chess.Engine.Position;
+import com.chess.GameActivityManagers.GameStateSerializer;
+import com.chess.GameActivityManagers.MoveInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+// saved game round trip and replay for short, long and very long histories
+// json is the old save format, binary the current one
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameStateBenchmark {
+    @Param({"40", "200", "1000"})
+    public int plies;
+
+    private ArrayList<MoveInfo> history;
+    private String json;
+    private Position played;
+    private ByteBuffer binary;
+    private ByteBuffer metadata;
+    private final Position loaded = new Position();
+    private final int[] paddings = new int[64];
+
+    @Setup
+    public void setup() throws IOException {
+        history = BenchmarkPositions.randomGame(plies, 20250407L);
+        json = GameStateSerializer.toJson(history);
+        played = new Position();
+        GameStateSerializer.playHistory(history, played);
+        binary = GameStateSerializer.toBinary(Position.START_FEN, played, false);
+        metadata = GameStateSerializer.toMetadata(plies, plies % 2 == 0, 0L);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return GameStateSerializer.toJson(history);
+    }
+
+    @Benchmark
+    public ArrayList<MoveInfo> deserialize() {
+        return GameStateSerializer.fromJson(json);
+    }
+
+    // resume without the views - parse, then play every move on a fresh position
+    @Benchmark
+    public long replay() {
+        ArrayList<MoveInfo> moves = GameStateSerializer.fromJson(json);
+        Position position = new Position();
+        position.setStartPosition();
+        for (MoveInfo move : moves) {
+            position.makeMove(position.createMove(
+                    Bitboards.square(move.fromRow, move.fromCol),
+                    Bitboards.square(move.toRow, move.toCol)));
+        }
+        return position.key();
+    }
+
+    @Benchmark
+    public ByteBuffer serializeBinary() {
+        return GameStateSerializer.toBinary(Position.START_FEN, played, false);
+    }
+
+    @Benchmark
+    public GameStateSerializer.SavedGame deserializeBinary() throws IOException {
+        return GameStateSerializer.fromBinary(binary.duplicate());
+    }
+
+    // what the menu reads to offer a resume - the same whatever the game length
+    @Benchmark
+    public GameStateSerializer.SaveMetadata readMetadata() throws IOException {
+        return GameStateSerializer.fromMetadata(metadata.duplicate());
+    }
+
+    // parse, check every move and rebuild the board's history
+    @Benchmark
+    public ArrayList<MoveInfo> replayBinary() throws IOException {
+        return GameStateSerializer.toMoveHistory(GameStateSerializer.fromBinary(binary.duplicate()), loaded, paddings);
+    }
+}
@@ -0,0 +1,52 @@
+package com.chess.benchmark;
+
+import com.chess.Engine.MoveGenerator;
+import com.chess.Engine.MoveList;
+import com.chess.Engine.Position;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// full legal move generation, and make/unmake of every legal move
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveGenerationBenchmark {
+    @Param({"start", "kiwipete", "middlegame", "endgame"})
+    public String positionName;
+
+    private Position position;
+    private final MoveList moves = new MoveList();
+    private final MoveList legalMoves = new MoveList();
+
+    @Setup
+    public void setup() {
+        position = BenchmarkPositions.position(BenchmarkPositions.fen(positionName));
+        MoveGenerator.generateLegalMoves(position, legalMoves);
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        MoveGenerator.generateLegalMoves(position, moves);
+        return moves.size();
+    }
+
+    @Benchmark
+    public long makeUnmake() {
+        long keys = 0;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            position.makeMove(legalMoves.get(i));
+            keys ^= position.key();
+            position.unmakeMove();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,83 @@
+package com.chess.benchmark;
+
+import com.chess.Engine.Bitboards;
+import com.chess.Engine.Move;
+import com.chess.Engine.MoveGenerator;
+import com.chess.Engine.MoveList;
+import com.chess.Engine.Piece;
+import com.chess.Engine.Position;
+import com.chess.GameActivityManagers.MoveValidator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the board's tap checks through MoveValidator, for a piece of each type
+// selecting a piece asks for its targets, the second tap validates the move
+// validate and targets hit the validator's cache like every tap after the first in a position
+// firstTap is a fresh validator, so it pays the move generation a new position costs
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveValidationBenchmark {
+    // in Piece type order
+    private static final List<String> PIECE_TYPES = Arrays.asList("PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING");
+
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    public String pieceType;
+
+    private Position position;
+    private MoveValidator validator;
+    private int from;
+    private int fromRow;
+    private int fromCol;
+    private int toRow;
+    private int toCol;
+
+    @Setup
+    public void setup() {
+        position = BenchmarkPositions.position(BenchmarkPositions.KIWIPETE);
+        validator = new MoveValidator(position);
+
+        int type = PIECE_TYPES.indexOf(pieceType);
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(position, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Piece.type(position.pieceAt(Move.from(move))) == type) {
+                from = Move.from(move);
+                fromRow = Bitboards.row(from);
+                fromCol = Bitboards.col(from);
+                toRow = Bitboards.row(Move.to(move));
+                toCol = Bitboards.col(Move.to(move));
+                validator.legalTargets(from); // fills the cache
+                return;
+            }
+        }
+        throw new IllegalStateException("no legal " + pieceType + " move");
+    }
+
+    @Benchmark
+    public long targets() {
+        return validator.legalTargets(from);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return validator.isValidMove(fromRow, fromCol, toRow, toCol);
+    }
+
+    @Benchmark
+    public boolean firstTap() {
+        return new MoveValidator(position).isValidMove(fromRow, fromCol, toRow, toCol);
+    }
+}
@@ -0,0 +1,77 @@
+package com.chess.Engine;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+// checks that move generation and make/unmake allocate nothing once warmed up
+// desktop jvm only - reads the thread allocation counter through com.sun.management by reflection
+// run: ./gradlew :benchmark:allocationCheck
+public final class AllocationCheck {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int DEPTH = 4;
+
+    private static final String[] POSITIONS = {
+            Position.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+
+    private final Object threadBean;
+    private final Method allocatedBytes;
+    private final long threadId = Thread.currentThread().getId();
+
+    private AllocationCheck() throws ReflectiveOperationException {
+        threadBean = Class.forName("java.lang.management.ManagementFactory")
+                .getMethod("getThreadMXBean").invoke(null);
+        allocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                .getMethod("getThreadAllocatedBytes", long.class);
+    }
+
+    private long allocatedBytes() throws ReflectiveOperationException {
+        return (Long) allocatedBytes.invoke(threadBean, threadId);
+    }
+
+    // legal moves generated and made across every position
+    private static long run(Perft[] walks) {
+        long moves = 0;
+        for (Perft walk : walks) {
+            moves += walk.perft(DEPTH);
+        }
+        return moves;
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        AllocationCheck check = new AllocationCheck();
+
+        // positions and per-ply buffers are set up once, outside the measurement
+        Perft[] walks = new Perft[POSITIONS.length];
+        for (int i = 0; i < POSITIONS.length; i++) {
+            Position position = new Position();
+            position.setFen(POSITIONS[i]);
+            walks[i] = new Perft(position, DEPTH);
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(walks);
+        }
+
+        // the counter read itself allocates - measure it with nothing in between
+        long before = check.allocatedBytes();
+        long after = check.allocatedBytes();
+        long overhead = after - before;
+
+        before = check.allocatedBytes();
+        long moves = run(walks);
+        after = check.allocatedBytes();
+        long allocated = Math.max(0, after - before - overhead);
+
+        System.out.println(String.format(Locale.US, "%,d moves generated and made, %,d bytes allocated, %.4f bytes per move",
+                moves, allocated, (double) allocated / moves));
+
+        if (allocated > 0) {
+            System.exit(1);
+        }
+    }
+}
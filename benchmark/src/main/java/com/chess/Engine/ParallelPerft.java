@@ -0,0 +1,110 @@
+package com.chess.Engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// perft split across a fork-join pool - root moves always fork, deeper subtrees fork while they are large
+public final class ParallelPerft {
+    // subtrees this shallow are counted on the current worker
+    private static final int SEQUENTIAL_DEPTH = 4;
+
+    private final ForkJoinPool pool;
+    private final PerftCache cache;
+
+    // cacheMb <= 0 disables the shared cache
+    public ParallelPerft(int threads, int cacheMb) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.cache = cacheMb > 0 ? new PerftCache(cacheMb) : null;
+    }
+
+    public long perft(Position position, int depth) {
+        if (depth <= 1) {
+            return new Perft(new Position(position), depth).perft(depth);
+        }
+        return pool.invoke(new PerftTask(new Position(position), depth, true));
+    }
+
+    public long divide(Position position, int depth, StringBuilder out) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(position, moves);
+
+        // one task per root move, results kept in move order
+        List<PerftTask> tasks = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            Position child = new Position(position);
+            child.makeMove(moves.get(i));
+            tasks.add(new PerftTask(child, depth - 1, true));
+        }
+        for (PerftTask task : tasks) {
+            pool.execute(task);
+        }
+
+        long total = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            long nodes = tasks.get(i).join();
+            total += nodes;
+            out.append(Move.toUci(moves.get(i))).append(": ").append(nodes).append('\n');
+        }
+        out.append("moves: ").append(moves.size()).append(", nodes: ").append(total).append('\n');
+        return total;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // never serialized - RecursiveTask is Serializable only by inheritance
+    @SuppressWarnings("serial")
+    private final class PerftTask extends RecursiveTask<Long> {
+        private final Position position;
+        private final int depth;
+        private final boolean isRoot;
+
+        PerftTask(Position position, int depth, boolean isRoot) {
+            this.position = position;
+            this.depth = depth;
+            this.isRoot = isRoot;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= 1 || (!isRoot && depth <= SEQUENTIAL_DEPTH)) {
+                return new Perft(position, depth, cache).perft(depth);
+            }
+
+            long key = position.key();
+            if (cache != null) {
+                long cached = cache.probe(key, depth);
+                if (cached >= 0) {
+                    return cached;
+                }
+            }
+
+            MoveList moves = new MoveList();
+            MoveGenerator.generateLegalMoves(position, moves);
+
+            List<PerftTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                Position child = new Position(position);
+                child.makeMove(moves.get(i));
+                children.add(new PerftTask(child, depth - 1, false));
+            }
+
+            long nodes = 0;
+            for (PerftTask child : invokeAll(children)) {
+                nodes += child.join();
+            }
+
+            if (cache != null) {
+                cache.store(key, depth, nodes);
+            }
+            return nodes;
+        }
+    }
+}
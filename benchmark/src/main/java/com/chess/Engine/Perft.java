@@ -0,0 +1,241 @@
+package com.chess.Engine;
+
+import java.util.Locale;
+
+// counts leaf nodes of the legal move tree and checks them against published numbers
+// usage: ./gradlew :benchmark:perft --args="[--deep] [--threads n [--cache mb]] [--divide depth [fen]]"
+public final class Perft {
+
+    public static final class TestPosition {
+        public final String name;
+        public final String fen;
+        public final long[] expected; // expected[d - 1] = nodes at depth d, 0 = not published
+        public final int quickDepth;
+
+        TestPosition(String name, String fen, int quickDepth, long... expected) {
+            this.name = name;
+            this.fen = fen;
+            this.quickDepth = quickDepth;
+            this.expected = expected;
+        }
+
+        // edge case positions are published for a single depth
+        static TestPosition atDepth(String name, String fen, int depth, long nodes) {
+            long[] expected = new long[depth];
+            expected[depth - 1] = nodes;
+            return new TestPosition(name, fen, depth, expected);
+        }
+    }
+
+    public static final TestPosition[] SUITE = {
+            new TestPosition("start", Position.START_FEN, 5,
+                    20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+            new TestPosition("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4,
+                    48L, 2039L, 97862L, 4085603L, 193690690L),
+            new TestPosition("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5,
+                    14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+            new TestPosition("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4,
+                    6L, 264L, 9467L, 422333L, 15833292L),
+            new TestPosition("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 4,
+                    44L, 1486L, 62379L, 2103487L, 89941194L),
+            new TestPosition("position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 4,
+                    46L, 2079L, 89890L, 3894594L, 164075551L),
+
+            // en passant edge cases
+            TestPosition.atDepth("illegal en passant 1", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6, 1134888L),
+            TestPosition.atDepth("illegal en passant 2", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6, 1015133L),
+            TestPosition.atDepth("en passant gives check", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 6, 1440467L),
+
+            // castling edge cases
+            TestPosition.atDepth("short castle gives check", "5k2/8/8/8/8/8/8/4K2R w K - 0 1", 6, 661072L),
+            TestPosition.atDepth("long castle gives check", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 6, 803711L),
+            TestPosition.atDepth("castling rights", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4, 1274206L),
+            TestPosition.atDepth("castling prevented", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 4, 1720476L),
+
+            // promotion edge cases
+            TestPosition.atDepth("promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3821001L),
+            TestPosition.atDepth("promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217342L),
+            TestPosition.atDepth("underpromote to give check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92683L),
+
+            // check, mate and stalemate edge cases
+            TestPosition.atDepth("discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1004658L),
+            TestPosition.atDepth("double check", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23527L),
+            TestPosition.atDepth("self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2217L),
+            TestPosition.atDepth("stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567584L),
+    };
+
+    private final Position position;
+    private final MoveList[] moveLists;
+    private final PerftCache cache;
+
+    public Perft(Position position, int maxDepth) {
+        this(position, maxDepth, null);
+    }
+
+    public Perft(Position position, int maxDepth, PerftCache cache) {
+        this.position = position;
+        this.cache = cache;
+        this.moveLists = new MoveList[maxDepth + 1];
+        for (int i = 0; i <= maxDepth; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = moveLists[depth];
+        MoveGenerator.generateLegalMoves(position, moves);
+
+        // bulk count the last ply
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long key = position.key();
+        if (cache != null) {
+            long cached = cache.probe(key, depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            nodes += perft(depth - 1);
+            position.unmakeMove();
+        }
+
+        if (cache != null) {
+            cache.store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    // per root move breakdown
+    public long divide(int depth, StringBuilder out) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(position, moves);
+
+        long total = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            position.makeMove(move);
+            long nodes = perft(depth - 1);
+            position.unmakeMove();
+
+            total += nodes;
+            out.append(Move.toUci(move)).append(": ").append(nodes).append('\n');
+        }
+        out.append("moves: ").append(moves.size()).append(", nodes: ").append(total).append('\n');
+        return total;
+    }
+
+    // runs the suite, returns the number of mismatches
+    public static int runSuite(boolean deep) {
+        return runSuite(deep, null);
+    }
+
+    // parallel == null runs single threaded
+    public static int runSuite(boolean deep, ParallelPerft parallel) {
+        int failures = 0;
+        long totalNodes = 0;
+        long totalNanos = 0;
+
+        for (TestPosition test : SUITE) {
+            Position position = new Position();
+            position.setFen(test.fen);
+            int maxDepth = deep ? test.expected.length : test.quickDepth;
+            Perft perft = parallel == null ? new Perft(position, maxDepth) : null;
+
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                long expected = test.expected[depth - 1];
+                if (expected == 0) {
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                long nodes = perft != null ? perft.perft(depth) : parallel.perft(position, depth);
+                long nanos = System.nanoTime() - start;
+
+                boolean ok = nodes == expected;
+                if (!ok) {
+                    failures++;
+                }
+                totalNodes += nodes;
+                totalNanos += nanos;
+
+                System.out.println(String.format(Locale.US, "%-4s %-28s depth %d  nodes %,13d  expected %,13d  %8.1f ms  %,12d nps",
+                        ok ? "ok" : "FAIL", test.name, depth, nodes, expected, nanos / 1e6, nodesPerSecond(nodes, nanos)));
+            }
+        }
+
+        System.out.println(String.format(Locale.US, "total %,d nodes in %.1f ms, %,d nps, %d failures",
+                totalNodes, totalNanos / 1e6, nodesPerSecond(totalNodes, totalNanos), failures));
+        return failures;
+    }
+
+    public static long nodesPerSecond(long nodes, long nanos) {
+        return nanos > 0 ? nodes * 1_000_000_000L / nanos : 0;
+    }
+
+    public static void main(String[] args) {
+        boolean deep = false;
+        int divideDepth = 0;
+        int threads = 0;
+        int cacheMb = 0;
+        StringBuilder fen = new StringBuilder();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--deep":
+                    deep = true;
+                    break;
+                case "--divide":
+                    divideDepth = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--cache":
+                    cacheMb = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    fen.append(args[i]).append(' ');
+                    break;
+            }
+        }
+
+        System.out.println(String.format(Locale.US, "attack tables: %,d bytes, built in %.2f ms",
+                Bitboards.TABLE_BYTES, Bitboards.INIT_NANOS / 1e6));
+
+        ParallelPerft parallel = threads > 0 ? new ParallelPerft(threads, cacheMb) : null;
+        try {
+            if (divideDepth > 0) {
+                Position position = new Position();
+                position.setFen(fen.length() > 0 ? fen.toString() : Position.START_FEN);
+
+                StringBuilder out = new StringBuilder();
+                long start = System.nanoTime();
+                long nodes = parallel != null
+                        ? parallel.divide(position, divideDepth, out)
+                        : new Perft(position, divideDepth).divide(divideDepth, out);
+                long nanos = System.nanoTime() - start;
+                System.out.print(out);
+                System.out.println(String.format(Locale.US, "%.1f ms, %,d nps", nanos / 1e6, nodesPerSecond(nodes, nanos)));
+                return;
+            }
+
+            if (runSuite(deep, parallel) > 0) {
+                System.exit(1);
+            }
+        } finally {
+            if (parallel != null) {
+                parallel.shutdown();
+            }
+        }
+    }
+}
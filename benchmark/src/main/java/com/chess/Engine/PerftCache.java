@@ -0,0 +1,38 @@
+package com.chess.Engine;
+
+// hash table of subtree counts shared between perft workers
+// entries store key ^ data next to data, so a torn or overwritten entry fails the check instead of needing a lock
+public final class PerftCache {
+    private final long[] checks;
+    private final long[] data;
+    private final int mask;
+
+    public PerftCache(int sizeMb) {
+        // two longs per entry, rounded down to a power of two
+        int entries = Integer.highestOneBit(Math.max(1, sizeMb) * (1024 * 1024 / 16));
+        this.checks = new long[entries];
+        this.data = new long[entries];
+        this.mask = entries - 1;
+    }
+
+    // -1 when missing
+    public long probe(long key, int depth) {
+        int index = index(key, depth);
+        long entry = data[index];
+        if ((checks[index] ^ entry) == key && (int) (entry & 0xFF) == depth) {
+            return entry >>> 8;
+        }
+        return -1;
+    }
+
+    public void store(long key, int depth, long nodes) {
+        int index = index(key, depth);
+        long entry = (nodes << 8) | depth;
+        data[index] = entry;
+        checks[index] = key ^ entry;
+    }
+
+    private int index(long key, int depth) {
+        return (int) ((key ^ (depth * 0x9E3779B97F4A7C15L)) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,95 @@
+package com.chess.Engine;
+
+import java.util.Locale;
+
+// time-to-depth for 1..n search threads, plus a repeatability check for the single-threaded search
+// run: ./gradlew :benchmark:searchBenchmark --args="[--depth d] [--threads n]"
+public final class SearchBenchmark {
+    private static final int TABLE_SIZE_MB = 32;
+
+    private static final String[] POSITIONS = {
+            Position.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+
+    private SearchBenchmark() {}
+
+    // total time for every position to reach depth, fresh table each position
+    private static long timeToDepth(int threads, int depth) {
+        Search search = new Search(TABLE_SIZE_MB, threads);
+        try {
+            long total = 0;
+            for (String fen : POSITIONS) {
+                Position position = new Position();
+                position.setFen(fen);
+                search.clearTable();
+                Search.Result result = search.search(position, new Search.Limits(depth, 0, 0));
+                total += result.nanos;
+            }
+            return total;
+        } finally {
+            search.shutdown();
+        }
+    }
+
+    // same move, score and node count on every run
+    private static boolean isDeterministic(int depth) {
+        Search.Result[] first = new Search.Result[POSITIONS.length];
+        for (int run = 0; run < 2; run++) {
+            Search search = new Search(TABLE_SIZE_MB, 1);
+            for (int i = 0; i < POSITIONS.length; i++) {
+                Position position = new Position();
+                position.setFen(POSITIONS[i]);
+                search.clearTable();
+                Search.Result result = search.search(position, new Search.Limits(depth, 0, 0));
+                if (run == 0) {
+                    first[i] = result;
+                } else if (result.bestMove != first[i].bestMove
+                        || result.score != first[i].score
+                        || result.nodes != first[i].nodes) {
+                    System.out.println("not deterministic: " + POSITIONS[i]);
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) {
+        int depth = 7;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    maxThreads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument: " + args[i]);
+            }
+        }
+
+        boolean deterministic = isDeterministic(depth);
+        System.out.println("threads 1 deterministic: " + deterministic);
+
+        long baseline = 0;
+        // doubling thread counts, always ending on the maximum
+        for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads)) {
+            long nanos = timeToDepth(threads, depth);
+            if (threads == 1) {
+                baseline = nanos;
+            }
+            System.out.println(String.format(Locale.US, "threads %2d  depth %d  %8.1f ms  speedup %.2fx",
+                    threads, depth, nanos / 1e6, (double) baseline / nanos));
+        }
+
+        if (!deterministic) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.chess.Engine;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+// the suite's shallow depths - ./gradlew :benchmark:perft runs it all
+public class PerftTest {
+    // keeps the whole test to a few seconds
+    private static final long MAX_NODES = 1_000_000L;
+
+    @Test
+    public void suiteAtShallowDepths() {
+        for (Perft.TestPosition test : Perft.SUITE) {
+            Position position = new Position();
+            position.setFen(test.fen);
+            Perft perft = new Perft(position, test.expected.length);
+
+            for (int depth = 1; depth <= test.expected.length; depth++) {
+                long expected = test.expected[depth - 1];
+                if (expected == 0 || expected > MAX_NODES) {
+                    continue;
+                }
+                assertEquals(test.name + " depth " + depth, expected, perft.perft(depth));
+            }
+            // every move was taken back
+            assertEquals(test.name, test.fen, position.toFen());
+        }
+    }
+
+    @Test
+    public void cachedMatchesUncached() {
+        Position position = new Position();
+        position.setFen(Perft.SUITE[1].fen);
+
+        Perft cached = new Perft(position, 3, new PerftCache(1));
+        assertEquals(Perft.SUITE[1].expected[2], cached.perft(3));
+        // the second run is answered from the cache
+        assertEquals(Perft.SUITE[1].expected[2], cached.perft(3));
+    }
+
+    @Test
+    public void parallelMatchesSerial() {
+        Position position = new Position();
+        position.setFen(Perft.SUITE[0].fen);
+
+        ParallelPerft parallel = new ParallelPerft(2, 1);
+        try {
+            assertEquals(Perft.SUITE[0].expected[3], parallel.perft(position, 4));
+        } finally {
+            parallel.shutdown();
+        }
+    }
+}
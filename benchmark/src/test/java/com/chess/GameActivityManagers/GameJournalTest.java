@@ -0,0 +1,163 @@
+package com.chess.GameActivityManagers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.chess.Engine.Position;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+public class GameJournalTest {
+    // only the journal's bookkeeping is under test - any 16-bit values do as moves
+    private static final int[] MOVES = {0x0C1C, 0x3424, 0x0615, 0x3E2D};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File snapshotFile;
+    private File journalFile;
+
+    private GameJournal open() {
+        snapshotFile = new File(folder.getRoot(), "game.sav");
+        journalFile = new File(folder.getRoot(), "game.journal");
+        return new GameJournal(snapshotFile, journalFile);
+    }
+
+    private GameStateSerializer.SavedGame load(ByteBuffer journal) throws IOException {
+        GameStateSerializer.SavedGame snapshot = GameStateSerializer.fromBinary(read(snapshotFile));
+        return GameJournal.apply(snapshot, journal);
+    }
+
+    private static ByteBuffer read(File file) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void appliesMoves() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 2, true, 0);
+            journal.appendMove(MOVES[2]);
+            journal.appendMove(MOVES[3]);
+            assertEquals(2, journal.records());
+        }
+
+        GameStateSerializer.SavedGame game = load(read(journalFile));
+        assertArrayEquals(MOVES, game.moves);
+        assertTrue(game.vsComputer);
+    }
+
+    @Test
+    public void appliesTruncate() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 3, false, 0);
+            journal.appendTruncate(1);
+            journal.appendMove(MOVES[3]);
+        }
+
+        assertArrayEquals(new int[] {MOVES[0], MOVES[3]}, load(read(journalFile)).moves);
+    }
+
+    @Test
+    public void truncateCutsBackUncheckedPlies() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 4, false, 3);
+            journal.appendTruncate(2);
+            journal.appendMove(MOVES[2]);
+        }
+
+        GameStateSerializer.SavedGame game = load(read(journalFile));
+        assertEquals(3, game.moves.length);
+        assertEquals(2, game.uncheckedPlies);
+    }
+
+    @Test
+    public void compactionStartsAnEmptyJournal() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 1, false, 0);
+            journal.appendMove(MOVES[1]);
+            journal.compact(MOVES, 3, false, 0);
+            assertEquals(0, journal.records());
+        }
+
+        assertArrayEquals(new int[] {MOVES[0], MOVES[1], MOVES[2]}, load(read(journalFile)).moves);
+    }
+
+    @Test
+    public void stopsAtTornRecord() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 1, false, 0);
+            journal.appendMove(MOVES[1]);
+            journal.appendMove(MOVES[2]);
+        }
+
+        // the last record lost its final bytes
+        ByteBuffer journal = read(journalFile);
+        journal.limit(journal.limit() - 2);
+
+        assertArrayEquals(new int[] {MOVES[0], MOVES[1]}, load(journal).moves);
+    }
+
+    @Test
+    public void stopsAtDamagedRecord() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 1, false, 0);
+            journal.appendMove(MOVES[1]);
+            journal.appendMove(MOVES[2]);
+            journal.appendMove(MOVES[3]);
+        }
+
+        // a bit flipped in the second record's move - it and everything after it are dropped
+        ByteBuffer journal = read(journalFile);
+        int second = journal.limit() - 2 * 4;
+        journal.put(second + 1, (byte) (journal.get(second + 1) ^ 0x10));
+
+        assertArrayEquals(new int[] {MOVES[0], MOVES[1]}, load(journal).moves);
+    }
+
+    @Test
+    public void stopsAtTruncatePastTheEnd() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 2, false, 0);
+            journal.appendTruncate(3);
+            journal.appendMove(MOVES[2]);
+        }
+
+        assertArrayEquals(new int[] {MOVES[0], MOVES[1]}, load(read(journalFile)).moves);
+    }
+
+    @Test
+    public void ignoresJournalOfAnotherSnapshot() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 1, false, 0);
+            journal.appendMove(MOVES[1]);
+        }
+        ByteBuffer staleJournal = read(journalFile);
+
+        // a crash after the new snapshot was written, before its journal was
+        GameJournal.writeAtomically(snapshotFile, GameStateSerializer.toBinary(Position.START_FEN, MOVES, 3, false));
+
+        GameStateSerializer.SavedGame snapshot = GameStateSerializer.fromBinary(read(snapshotFile));
+        assertSame(snapshot, GameJournal.apply(snapshot, staleJournal));
+    }
+
+    @Test
+    public void ignoresTornHeader() throws IOException {
+        try (GameJournal journal = open()) {
+            journal.compact(MOVES, 2, false, 0);
+        }
+
+        ByteBuffer journal = read(journalFile);
+        journal.limit(journal.limit() - 1);
+
+        assertArrayEquals(new int[] {MOVES[0], MOVES[1]}, load(journal).moves);
+    }
+}
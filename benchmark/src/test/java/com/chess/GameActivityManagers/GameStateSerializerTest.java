@@ -0,0 +1,171 @@
+package com.chess.GameActivityManagers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.chess.Engine.Bitboards;
+import com.chess.Engine.Position;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GameStateSerializerTest {
+    // castles both ways and takes en passant
+    private static final String[] GAME = {
+            "e2e4", "a7a6", "e4e5", "d7d5", "e5d6", "e7d6", "g1f3", "g8f6", "f1e2", "f8e7", "e1g1", "e8g8"};
+
+    // white walks into check and leaves it - the old validator let that through
+    private static final String[] OLD_ILLEGAL_GAME = {"f2f3", "e7e5", "e1f2", "d8h4", "a2a3", "b8c6"};
+
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        Position played = play(GAME);
+        GameStateSerializer.SavedGame saved = GameStateSerializer.fromBinary(
+                GameStateSerializer.toBinary(Position.START_FEN, played, true));
+
+        assertEquals(Position.START_FEN, saved.startFen);
+        assertArrayEquals(movesOf(played), saved.moves);
+        assertTrue(saved.vsComputer);
+        assertEquals(0, saved.uncheckedPlies);
+
+        Position loaded = new Position();
+        List<MoveInfo> history = GameStateSerializer.toMoveHistory(saved, loaded, new int[64]);
+        assertEquals(GAME.length, history.size());
+        assertEquals(played.key(), loaded.key());
+        assertEquals(played.key(), history.get(history.size() - 1).positionKey);
+    }
+
+    @Test
+    public void binaryRoundTripKeepsUncheckedPlies() throws IOException {
+        int[] moves = movesOf(play(GAME));
+        GameStateSerializer.SavedGame saved = GameStateSerializer.fromBinary(
+                GameStateSerializer.toBinary(Position.START_FEN, moves, moves.length, false, 5));
+
+        assertArrayEquals(moves, saved.moves);
+        assertFalse(saved.vsComputer);
+        assertEquals(5, saved.uncheckedPlies);
+    }
+
+    @Test
+    public void rejectsDamagedSave() {
+        ByteBuffer data = GameStateSerializer.toBinary(Position.START_FEN, play(GAME), false);
+        int middle = data.limit() / 2;
+        data.put(middle, (byte) (data.get(middle) ^ 1));
+
+        assertThrows(IOException.class, () -> GameStateSerializer.fromBinary(data));
+    }
+
+    @Test
+    public void rejectsTruncatedSave() {
+        ByteBuffer data = GameStateSerializer.toBinary(Position.START_FEN, play(GAME), false);
+        data.limit(data.limit() - 3);
+
+        assertThrows(IOException.class, () -> GameStateSerializer.fromBinary(data));
+    }
+
+    @Test
+    public void migratesJson() throws IOException {
+        Position played = play(GAME);
+        String json = GameStateSerializer.toJson(recordOf(GAME));
+
+        Position migrated = new Position();
+        GameStateSerializer.playHistory(GameStateSerializer.fromJson(json), migrated);
+
+        assertArrayEquals(movesOf(played), movesOf(migrated));
+        assertEquals(played.key(), migrated.key());
+    }
+
+    @Test
+    public void migrationKeepsOldIllegalMoves() throws IOException {
+        Position migrated = new Position();
+        GameStateSerializer.playHistory(recordOf(OLD_ILLEGAL_GAME), migrated);
+        int[] moves = movesOf(migrated);
+
+        GameStateSerializer.SavedGame saved = GameStateSerializer.fromBinary(
+                GameStateSerializer.toBinary(Position.START_FEN, moves, moves.length, false, moves.length));
+        Position loaded = new Position();
+        GameStateSerializer.toMoveHistory(saved, loaded, new int[64]);
+
+        assertEquals(migrated.key(), loaded.key());
+    }
+
+    @Test
+    public void migrationRejectsKingLeftInCheck() {
+        List<MoveInfo> history = recordOf(OLD_ILLEGAL_GAME).subList(0, 5);
+
+        assertThrows(IOException.class, () -> GameStateSerializer.playHistory(history, new Position()));
+    }
+
+    @Test
+    public void migrationRejectsUnplayableMove() {
+        List<MoveInfo> history = recordOf("e2e4", "e2e5");
+
+        assertThrows(IOException.class, () -> GameStateSerializer.playHistory(history, new Position()));
+    }
+
+    @Test
+    public void nativeSaveRejectsIllegalMove() throws IOException {
+        Position migrated = new Position();
+        GameStateSerializer.playHistory(recordOf(OLD_ILLEGAL_GAME), migrated);
+        GameStateSerializer.SavedGame saved = GameStateSerializer.fromBinary(
+                GameStateSerializer.toBinary(Position.START_FEN, migrated, false));
+
+        IOException e = assertThrows(IOException.class,
+                () -> GameStateSerializer.toMoveHistory(saved, new Position(), new int[64]));
+        assertTrue(e.getMessage(), e.getMessage().contains("ply 4"));
+    }
+
+    @Test
+    public void movesAfterUncheckedPliesAreChecked() throws IOException {
+        Position migrated = new Position();
+        GameStateSerializer.playHistory(recordOf(OLD_ILLEGAL_GAME), migrated);
+        int[] moves = movesOf(migrated);
+
+        // the illegal move is the fifth, one past the unchecked ones
+        GameStateSerializer.SavedGame saved = GameStateSerializer.fromBinary(
+                GameStateSerializer.toBinary(Position.START_FEN, moves, moves.length, false, 4));
+
+        assertThrows(IOException.class, () -> GameStateSerializer.toMoveHistory(saved, new Position(), new int[64]));
+    }
+
+    private static Position play(String... moves) {
+        Position position = new Position();
+        position.setStartPosition();
+        for (String uci : moves) {
+            position.makeMove(position.createMove(Position.parseSquare(uci.substring(0, 2)),
+                    Position.parseSquare(uci.substring(2, 4))));
+        }
+        return position;
+    }
+
+    private static int[] movesOf(Position position) {
+        int[] moves = new int[position.ply()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = position.moveAt(i);
+        }
+        return moves;
+    }
+
+    // board coordinates only, like the old json saves
+    private static List<MoveInfo> recordOf(String... moves) {
+        List<MoveInfo> history = new ArrayList<>(moves.length);
+        for (String uci : moves) {
+            int from = Position.parseSquare(uci.substring(0, 2));
+            int to = Position.parseSquare(uci.substring(2, 4));
+            MoveInfo info = new MoveInfo();
+            info.fromRow = Bitboards.row(from);
+            info.fromCol = Bitboards.col(from);
+            info.toRow = Bitboards.row(to);
+            info.toCol = Bitboards.col(to);
+            history.add(info);
+        }
+        return history;
+    }
+}